@@ -0,0 +1,71 @@
+package com.sensitivewords.benchmark;
+
+import com.sensitivewords.utils.BatchExecutor;
+import com.sensitivewords.utils.OptimizedDoubleArrayAhoCorasick;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// 批量替换：公共ForkJoinPool上的parallelStream 与 专用BatchExecutor 对比
+// 以多个JMH线程同时提交批次（-t）模拟Web容器中的并发请求
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class BatchReplaceBenchmark {
+
+    @Param({"16", "256", "4096"})
+    public int batchSize;
+
+    @Param({"256"})
+    public int textLength;
+
+    private OptimizedDoubleArrayAhoCorasick automaton;
+    private BatchExecutor executor;
+    private List<String> texts;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<String> words = MatcherBenchmark.loadDictionary();
+        automaton = new OptimizedDoubleArrayAhoCorasick(words);
+        executor = new BatchExecutor(Runtime.getRuntime().availableProcessors());
+        Random random = new Random(20240601L);
+        texts = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            StringBuilder sb = new StringBuilder(textLength + 32);
+            while (sb.length() < textLength) {
+                if (random.nextInt(200) == 0) {
+                    sb.append(words.get(random.nextInt(words.size())));
+                } else {
+                    sb.append(MatcherBenchmark.Script.MIXED.randomChar(random));
+                }
+            }
+            sb.setLength(textLength);
+            texts.add(sb.toString());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public List<String> parallelStream() {
+        return texts.parallelStream()
+                .map(text -> automaton.replace(text, '*'))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> batchExecutor() {
+        return automaton.batchReplace(texts, '*', executor);
+    }
+}
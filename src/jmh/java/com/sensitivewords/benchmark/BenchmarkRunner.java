@@ -0,0 +1,34 @@
+package com.sensitivewords.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 基准入口：依次以1、4和CPU核数个线程运行，始终开启GC/分配剖析（输出 gc.alloc.rate.norm 即 B/op）
+// 结果按线程数写入 target/jmh-t{线程数}.json
+// 运行方式：mvn -Pjmh test-compile exec:exec -Djmh.args="-p dictionarySize=0 -p textLength=1024"
+// 其余参数与JMH命令行一致；传入 -t 时只按该线程数运行一轮
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        int[] threadCounts = commandLine.getThreads().hasValue()
+                ? new int[]{commandLine.getThreads().get()}
+                : new int[]{1, 4, Runtime.getRuntime().availableProcessors()};
+
+        for (int threads : threadCounts) {
+            OptionsBuilder options = new OptionsBuilder();
+            options.parent(commandLine);
+            if (commandLine.getIncludes().isEmpty()) {
+                options.include(MatcherBenchmark.class.getSimpleName());
+            }
+            options.threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-t" + threads + ".json");
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.sensitivewords.benchmark;
+
+import com.sensitivewords.utils.AutomatonSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 自动机完整构建耗时（归一化 + Trie树 + 编译），对应词典重新加载时的停顿
+// 词表随机生成：长度2~8，约四分之三为常用汉字，其余为小写字母；大词表需要相应调大堆
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+@State(Scope.Benchmark)
+public class BuildBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    public int wordCount;
+
+    private List<String> words;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(20240601L);
+        words = new ArrayList<>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            int length = 2 + random.nextInt(7);
+            StringBuilder sb = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                sb.append(random.nextInt(4) == 0 ? (char) ('a' + random.nextInt(26)) : (char) (0x4E00 + random.nextInt(3000)));
+            }
+            words.add(sb.toString());
+        }
+    }
+
+    @Benchmark
+    public AutomatonSnapshot build() {
+        return AutomatonSnapshot.builder().addWords(words).build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.sensitivewords.benchmark;
+
+import com.sensitivewords.utils.AhoCorasickAutomaton;
+import com.sensitivewords.utils.OptimizedDoubleArrayAhoCorasick;
+import com.sensitivewords.utils.Utf8Automaton;
+import com.sensitivewords.utils.WuManberMatcher;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// 参与对比的匹配引擎，新增引擎时在这里加一项即可被全部基准覆盖
+public enum Engine {
+    // 线上使用的自动机（编译后的状态转移表）
+    AHO_CORASICK {
+        @Override
+        Matcher create(List<String> words) {
+            AhoCorasickAutomaton automaton = new AhoCorasickAutomaton();
+            automaton.addSensitiveWords(words);
+            return new Matcher() {
+                @Override
+                public boolean contains(String text, byte[] utf8) {
+                    return automaton.containsSensitiveWords(text);
+                }
+
+                @Override
+                public int countMatches(String text, byte[] utf8) {
+                    return automaton.matchAllSensitiveWords(text).size();
+                }
+            };
+        }
+    },
+    // 双数组AC自动机
+    DOUBLE_ARRAY {
+        @Override
+        Matcher create(List<String> words) {
+            OptimizedDoubleArrayAhoCorasick automaton = new OptimizedDoubleArrayAhoCorasick(words);
+            return new Matcher() {
+                @Override
+                public boolean contains(String text, byte[] utf8) {
+                    return automaton.containsSensitiveWords(text);
+                }
+
+                @Override
+                public int countMatches(String text, byte[] utf8) {
+                    return automaton.matchAllSensitiveWords(text).size();
+                }
+            };
+        }
+    },
+    // 直接扫描UTF-8字节
+    UTF8 {
+        @Override
+        Matcher create(List<String> words) {
+            Utf8Automaton automaton = Utf8Automaton.build(words);
+            return new Matcher() {
+                @Override
+                public boolean contains(String text, byte[] utf8) {
+                    return automaton.containsSensitiveWords(utf8, 0, utf8.length);
+                }
+
+                @Override
+                public int countMatches(String text, byte[] utf8) {
+                    int[] count = new int[1];
+                    automaton.forEachMatch(utf8, 0, utf8.length, (start, end, wordId) -> count[0]++);
+                    return count[0];
+                }
+            };
+        }
+    },
+    // Wu-Manber块跳转，适合最短词较长的词典
+    WU_MANBER {
+        @Override
+        Matcher create(List<String> words) {
+            WuManberMatcher matcher = WuManberMatcher.build(words);
+            return new Matcher() {
+                @Override
+                public boolean contains(String text, byte[] utf8) {
+                    return matcher.containsSensitiveWords(text);
+                }
+
+                @Override
+                public int countMatches(String text, byte[] utf8) {
+                    int[] count = new int[1];
+                    matcher.forEachMatch(text, (start, end, wordId) -> count[0]++);
+                    return count[0];
+                }
+            };
+        }
+    };
+
+    abstract Matcher create(List<String> words);
+
+    // 同一段文本同时提供String和UTF-8字节两种形式，编码开销不计入基准
+    interface Matcher {
+        boolean contains(String text, byte[] utf8);
+
+        int countMatches(String text, byte[] utf8);
+    }
+
+    static byte[] encode(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
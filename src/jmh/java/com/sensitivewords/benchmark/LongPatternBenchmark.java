@@ -0,0 +1,91 @@
+package com.sensitivewords.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// 长词词典：网址列表、按最短长度过滤后的敏感词，对比Wu-Manber块跳转与逐字符扫描的AC自动机
+// 最短词越长，Wu-Manber每次跳过的字符越多；最短词为2时基本逐字符校验，应不如AC自动机
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class LongPatternBenchmark {
+    private static final int TEXT_POOL_SIZE = 64;
+
+    @Param({"AHO_CORASICK", "DOUBLE_ARRAY", "WU_MANBER"})
+    public Engine engine;
+
+    @Param({"URL", "PHRASE"})
+    public Dictionary dictionary;
+
+    // 只保留不短于该长度的词
+    @Param({"2", "4", "8"})
+    public int minWordLength;
+
+    @Param({"16384"})
+    public int textLength;
+
+    // 每千字符插入的敏感词个数
+    @Param({"0", "1"})
+    public int hitsPerThousand;
+
+    private Engine.Matcher matcher;
+    private String[] texts;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<String> words = MatcherBenchmark.loadDictionary(dictionary.resource).stream()
+                .filter(word -> word.length() >= minWordLength)
+                .collect(Collectors.toList());
+        matcher = engine.create(words);
+
+        Random random = new Random(20240601L);
+        double hitProbability = hitsPerThousand / 1000.0;
+        texts = new String[TEXT_POOL_SIZE];
+        for (int i = 0; i < TEXT_POOL_SIZE; i++) {
+            StringBuilder sb = new StringBuilder(textLength + 64);
+            while (sb.length() < textLength) {
+                if (hitProbability > 0 && random.nextDouble() < hitProbability) {
+                    sb.append(words.get(random.nextInt(words.size())));
+                } else {
+                    sb.append(MatcherBenchmark.Script.MIXED.randomChar(random));
+                }
+            }
+            sb.setLength(textLength);
+            texts[i] = sb.toString();
+        }
+    }
+
+    @Benchmark
+    public boolean contains(Cursor cursor) {
+        return matcher.contains(texts[cursor.next++ & (TEXT_POOL_SIZE - 1)], null);
+    }
+
+    @Benchmark
+    public int matchAll(Cursor cursor) {
+        return matcher.countMatches(texts[cursor.next++ & (TEXT_POOL_SIZE - 1)], null);
+    }
+
+    public enum Dictionary {
+        URL("dic/网址.txt"),
+        PHRASE("dic/sensitiveWordsDic.dic");
+
+        final String resource;
+
+        Dictionary(String resource) {
+            this.resource = resource;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.sensitivewords.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 匹配引擎基准：按词典规模、文本长度、命中密度和文字类型组合参数
+// 每次调用扫描一段预先生成的文本，文本池轮转使用，避免分支预测记住同一段输入
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class MatcherBenchmark {
+    private static final int TEXT_POOL_SIZE = 256;
+
+    @Param({"AHO_CORASICK", "DOUBLE_ARRAY", "UTF8"})
+    public Engine engine;
+
+    // 从完整词典中按固定种子抽取的词数，0表示使用完整词典
+    @Param({"1000", "10000", "0"})
+    public int dictionarySize;
+
+    @Param({"64", "1024", "16384"})
+    public int textLength;
+
+    // 每千字符插入的敏感词个数
+    @Param({"0", "1", "10"})
+    public int hitsPerThousand;
+
+    @Param({"CJK", "LATIN", "MIXED"})
+    public Script script;
+
+    private Engine.Matcher matcher;
+    private String[] texts;
+    private byte[][] utf8Texts;
+
+    // 线程各自轮转文本池
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<String> dictionary = loadDictionary();
+        Random random = new Random(20240601L);
+        List<String> words = dictionary;
+        if (dictionarySize > 0 && dictionarySize < dictionary.size()) {
+            words = new ArrayList<>(dictionary);
+            Collections.shuffle(words, random);
+            words = new ArrayList<>(words.subList(0, dictionarySize));
+        }
+        matcher = engine.create(words);
+
+        texts = new String[TEXT_POOL_SIZE];
+        utf8Texts = new byte[TEXT_POOL_SIZE][];
+        for (int i = 0; i < TEXT_POOL_SIZE; i++) {
+            texts[i] = generateText(random, words);
+            utf8Texts[i] = Engine.encode(texts[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean contains(Cursor cursor) {
+        int i = cursor.next++ & (TEXT_POOL_SIZE - 1);
+        return matcher.contains(texts[i], utf8Texts[i]);
+    }
+
+    @Benchmark
+    public int matchAll(Cursor cursor) {
+        int i = cursor.next++ & (TEXT_POOL_SIZE - 1);
+        return matcher.countMatches(texts[i], utf8Texts[i]);
+    }
+
+    // 背景字符按文字类型随机生成，再按命中密度插入词典中的词
+    private String generateText(Random random, List<String> words) {
+        StringBuilder sb = new StringBuilder(textLength + 32);
+        double hitProbability = hitsPerThousand / 1000.0;
+        while (sb.length() < textLength) {
+            if (hitProbability > 0 && random.nextDouble() < hitProbability) {
+                sb.append(words.get(random.nextInt(words.size())));
+            } else {
+                sb.append(script.randomChar(random));
+            }
+        }
+        sb.setLength(textLength);
+        return sb.toString();
+    }
+
+    static List<String> loadDictionary() throws IOException {
+        return loadDictionary("dic/sensitiveWordsDic.dic");
+    }
+
+    static List<String> loadDictionary(String resource) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (InputStream in = MatcherBenchmark.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("找不到词典文件 " + resource);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    words.add(line);
+                }
+            }
+        }
+        return words;
+    }
+
+    public enum Script {
+        // 常用汉字区
+        CJK {
+            @Override
+            char randomChar(Random random) {
+                return (char) (0x4E00 + random.nextInt(0x9FA5 - 0x4E00));
+            }
+        },
+        // 小写字母、数字和空格
+        LATIN {
+            @Override
+            char randomChar(Random random) {
+                int r = random.nextInt(37);
+                return r < 26 ? (char) ('a' + r) : r < 36 ? (char) ('0' + r - 26) : ' ';
+            }
+        },
+        // 中英文混排，约一半汉字
+        MIXED {
+            @Override
+            char randomChar(Random random) {
+                return random.nextBoolean() ? CJK.randomChar(random) : LATIN.randomChar(random);
+            }
+        };
+
+        abstract char randomChar(Random random);
+    }
+}
@@ -0,0 +1,97 @@
+package com.sensitivewords.benchmark;
+
+import com.sensitivewords.utils.AutomatonSnapshot;
+import com.sensitivewords.utils.LexiconLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 状态转移表放在堆内数组和直接内存中的对比：扫描耗时，以及一次Full GC的停顿
+// 词表为全部内置词库加上随机生成的词，extraWords越大转移表越大（100万词约数百MB）
+// GC停顿看fullGc的耗时，以及各基准的 gc.time（BenchmarkRunner默认开启GC剖析）
+// 运行方式：mvn -Pjmh test-compile exec:exec -Djmh.args="OffHeapBenchmark"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+@State(Scope.Benchmark)
+public class OffHeapBenchmark {
+    private static final int TEXT_POOL_SIZE = 64;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    public Storage storage;
+
+    @Param({"0", "1000000"})
+    public int extraWords;
+
+    @Param({"16384"})
+    public int textLength;
+
+    private AutomatonSnapshot snapshot;
+    private String[] texts;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<String> words = new ArrayList<>();
+        LexiconLoader.loadBundled().values().forEach(words::addAll);
+        Random random = new Random(20240601L);
+        for (int i = 0; i < extraWords; i++) {
+            int length = 2 + random.nextInt(7);
+            StringBuilder sb = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                sb.append(random.nextInt(4) == 0 ? (char) ('a' + random.nextInt(26)) : (char) (0x4E00 + random.nextInt(3000)));
+            }
+            words.add(sb.toString());
+        }
+        AutomatonSnapshot built = AutomatonSnapshot.builder().addWords(words).build();
+        snapshot = storage == Storage.OFF_HEAP ? built.toOffHeap() : built;
+        System.gc();
+
+        texts = new String[TEXT_POOL_SIZE];
+        for (int i = 0; i < TEXT_POOL_SIZE; i++) {
+            StringBuilder sb = new StringBuilder(textLength);
+            while (sb.length() < textLength) {
+                sb.append(MatcherBenchmark.Script.MIXED.randomChar(random));
+            }
+            texts[i] = sb.toString();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        snapshot.release();
+    }
+
+    @Benchmark
+    public boolean contains(Cursor cursor) {
+        return snapshot.containsSensitiveWords(texts[cursor.next++ & (TEXT_POOL_SIZE - 1)]);
+    }
+
+    @Benchmark
+    public int matchAll(Cursor cursor) {
+        return snapshot.matchAllSensitiveWords(texts[cursor.next++ & (TEXT_POOL_SIZE - 1)]).size();
+    }
+
+    // 一次Full GC的耗时：堆内存储时转移表随堆一起标记、整理
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public void fullGc() {
+        System.gc();
+    }
+
+    public enum Storage {
+        HEAP, OFF_HEAP
+    }
+}
@@ -0,0 +1,60 @@
+package com.sensitivewords.benchmark;
+
+import com.sensitivewords.utils.CharNormalizer;
+import com.sensitivewords.utils.CompactTrieNode;
+import com.sensitivewords.utils.LexiconLoader;
+import com.sensitivewords.utils.TrieFootprint;
+import com.sensitivewords.utils.WordCategory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// 按词典输出Trie树的堆内存估算（当前自适应节点与旧的256槽数组结构对比），最后一行为随机生成的30万词词表
+// 运行方式：mvn -Pjmh test-compile exec:exec -Djmh.main=com.sensitivewords.benchmark.TrieFootprintReport
+public class TrieFootprintReport {
+    private static final int RANDOM_WORD_COUNT = 300_000;
+
+    public static void main(String[] args) throws Exception {
+        Map<WordCategory, List<String>> lexicons = LexiconLoader.loadBundled();
+        List<String> all = new ArrayList<>();
+        for (Map.Entry<WordCategory, List<String>> entry : lexicons.entrySet()) {
+            report(entry.getKey().getLabel(), entry.getValue());
+            all.addAll(entry.getValue());
+        }
+        report("全部词库", all);
+
+        // 与BuildBenchmark相同的随机词表：长度2~8，约四分之三为常用汉字
+        Random random = new Random(20240601L);
+        List<String> generated = new ArrayList<>(RANDOM_WORD_COUNT);
+        for (int i = 0; i < RANDOM_WORD_COUNT; i++) {
+            int length = 2 + random.nextInt(7);
+            StringBuilder sb = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                sb.append(random.nextInt(4) == 0 ? (char) ('a' + random.nextInt(26)) : (char) (0x4E00 + random.nextInt(3000)));
+            }
+            generated.add(sb.toString());
+        }
+        report("随机" + RANDOM_WORD_COUNT + "词", generated);
+    }
+
+    private static void report(String name, Collection<String> words) {
+        CharNormalizer normalizer = CharNormalizer.standard();
+        CompactTrieNode root = new CompactTrieNode();
+        for (String word : words) {
+            CompactTrieNode current = root;
+            for (char c : normalizer.normalize(word).toCharArray()) {
+                CompactTrieNode child = current.getChild(c);
+                if (child == null) {
+                    child = new CompactTrieNode();
+                    current.addChild(c, child);
+                }
+                current = child;
+            }
+            current.setEndOfWord(true);
+        }
+        System.out.printf("%s: %d 个词，%s%n", name, words.size(), TrieFootprint.of(root));
+    }
+}
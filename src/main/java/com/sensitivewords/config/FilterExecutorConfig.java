@@ -0,0 +1,36 @@
+package com.sensitivewords.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class FilterExecutorConfig {
+
+    // 批量过滤专用线程池，与Web容器线程隔离；扫描是纯CPU任务，线程数与核数一致
+    @Bean(name = "filterBatchExecutor", destroyMethod = "shutdown")
+    public ExecutorService filterBatchExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger index = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "filter-batch-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(
+                threads, // 核心线程数
+                threads, // 最大线程数
+                60, // 空闲线程存活时间
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1024), // 任务队列大小
+                threadFactory,
+                new ThreadPoolExecutor.CallerRunsPolicy() // 队列满时由提交线程执行，形成背压
+        );
+    }
+}
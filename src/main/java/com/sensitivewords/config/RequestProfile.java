@@ -0,0 +1,121 @@
+package com.sensitivewords.config;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 单个请求的分阶段耗时（System.nanoTime()）：读取请求体、JSON解析、扫描、序列化
+// 由RequestTimingFilter创建并放入请求属性；同一阶段可多次累加，批量请求的扫描由多个线程并发累加
+// 解析阶段的计时包含了解析过程中读取请求体的时间，报告时扣除读取部分
+public final class RequestProfile {
+    private static final String ATTRIBUTE = RequestProfile.class.getName();
+    static final String SERVER_TIMING = "Server-Timing";
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLongArray stages = new AtomicLongArray(Stage.values().length);
+    // start()/stop()计时的起点；异步请求中开始和结束可能在不同线程上
+    private final AtomicLongArray marks = new AtomicLongArray(Stage.values().length);
+
+    static RequestProfile start(ServletRequest request) {
+        RequestProfile profile = new RequestProfile();
+        request.setAttribute(ATTRIBUTE, profile);
+        return profile;
+    }
+
+    // 当前请求的记录；未经过RequestTimingFilter时（如单元测试）返回一个不会被汇总的记录
+    public static RequestProfile of(ServletRequest request) {
+        Object profile = request.getAttribute(ATTRIBUTE);
+        return profile instanceof RequestProfile ? (RequestProfile) profile : new RequestProfile();
+    }
+
+    public void add(Stage stage, long nanos) {
+        stages.getAndAdd(stage.ordinal(), nanos);
+    }
+
+    // 累加从startNanos到现在的耗时
+    public void addSince(Stage stage, long startNanos) {
+        add(stage, System.nanoTime() - startNanos);
+    }
+
+    void start(Stage stage) {
+        marks.set(stage.ordinal(), System.nanoTime());
+    }
+
+    void stop(Stage stage) {
+        long mark = marks.getAndSet(stage.ordinal(), 0);
+        if (mark != 0) {
+            addSince(stage, mark);
+        }
+    }
+
+    boolean isStarted(Stage stage) {
+        return marks.get(stage.ordinal()) != 0;
+    }
+
+    public long getNanos(Stage stage) {
+        long nanos = stages.get(stage.ordinal());
+        if (stage == Stage.DECODE) {
+            nanos = Math.max(0, nanos - stages.get(Stage.READ.ordinal()));
+        }
+        return nanos;
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    // Server-Timing响应头，单位毫秒；app为到目前为止的总耗时
+    String toServerTiming() {
+        StringBuilder sb = new StringBuilder(96);
+        for (Stage stage : Stage.values()) {
+            long nanos = getNanos(stage);
+            if (nanos > 0) {
+                appendMillis(sb.append(stage.label).append(";dur="), nanos).append(", ");
+            }
+        }
+        return appendMillis(sb.append("app;dur="), getElapsedNanos()).toString();
+    }
+
+    // 流式写出的响应在发出响应头时还没有完整耗时，改为在响应结束时以HTTP trailer发送Server-Timing
+    // 只有分块传输或HTTP/2的响应才能带trailer，HTTP/1.0等不支持时不发送
+    public void sendServerTimingAsTrailer(HttpServletResponse response) {
+        try {
+            response.setTrailerFields(() -> Map.of(SERVER_TIMING, toServerTiming()));
+        } catch (IllegalStateException e) {
+            return;
+        }
+        response.setHeader("Trailer", SERVER_TIMING);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(96);
+        for (Stage stage : Stage.values()) {
+            appendMillis(sb.append(stage.label).append('='), getNanos(stage)).append("ms ");
+        }
+        return appendMillis(sb.append("total="), getElapsedNanos()).append("ms").toString();
+    }
+
+    // 保留三位小数，不经过String.format
+    private static StringBuilder appendMillis(StringBuilder sb, long nanos) {
+        long micros = nanos / 1000;
+        sb.append(micros / 1000).append('.');
+        long fraction = micros % 1000;
+        if (fraction < 100) {
+            sb.append(fraction < 10 ? "00" : "0");
+        }
+        return sb.append(fraction);
+    }
+
+    public enum Stage {
+        READ("read"), DECODE("decode"), SCAN("scan"), SERIALIZE("serialize");
+
+        final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+}
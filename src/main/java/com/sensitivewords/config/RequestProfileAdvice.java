@@ -0,0 +1,71 @@
+package com.sensitivewords.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.lang.reflect.Type;
+
+// @RequestBody的解析计时，以及写出响应体之前设置Server-Timing响应头并开始序列化计时
+// 响应头必须在响应体之前发出，因此头中只有读取、解析、扫描和到此为止的总耗时，序列化耗时只进入汇总
+@ControllerAdvice
+public class RequestProfileAdvice extends RequestBodyAdviceAdapter implements ResponseBodyAdvice<Object> {
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestProfile profile = currentProfile();
+        if (profile != null) {
+            profile.start(RequestProfile.Stage.DECODE);
+        }
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestProfile profile = currentProfile();
+        if (profile != null) {
+            profile.stop(RequestProfile.Stage.DECODE);
+        }
+        return body;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            RequestProfile profile = RequestProfile.of(servletRequest.getServletRequest());
+            response.getHeaders().set(RequestProfile.SERVER_TIMING, profile.toServerTiming());
+            profile.start(RequestProfile.Stage.SERIALIZE);
+        }
+        return body;
+    }
+
+    private static RequestProfile currentProfile() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return RequestProfile.of(attributes.getRequest());
+        }
+        return null;
+    }
+}
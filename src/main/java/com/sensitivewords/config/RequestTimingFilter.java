@@ -1,35 +1,147 @@
 package com.sensitivewords.config;
 
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
+// 请求分阶段计时：读取请求体的时间由包装后的输入流累计，解析、序列化由RequestProfileAdvice计时，
+// 扫描由控制器计时；各阶段汇总到RequestTimingMetrics，只按采样率输出日志
+// 批量请求的响应在异步线程中流式写出，在异步请求完成时才汇总
 @Component
 public class RequestTimingFilter extends OncePerRequestFilter {
-    private static final Logger logger =  LoggerFactory.getLogger(RequestTimingFilter.class);
+    private static final Logger logger = LoggerFactory.getLogger(RequestTimingFilter.class);
+
+    private final RequestTimingMetrics metrics;
+
+    // 输出分阶段耗时日志的请求比例，0为不输出
+    @Value("${sensitive.timing.log-sample-rate:0}")
+    private double logSampleRate;
+
+    public RequestTimingFilter(RequestTimingMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
-        String requestId = UUID.randomUUID().toString().substring(0, 8);
-        long startTime = System.currentTimeMillis();
-        
-        logger.info("[{}] 请求到达Filter: {}", requestId, startTime);
-        
+        RequestProfile profile = RequestProfile.start(request);
         try {
-            filterChain.doFilter(request, response);
+            filterChain.doFilter(new TimedRequest(request, profile), response);
         } finally {
-            long endTime = System.currentTimeMillis();
-            logger.info("[{}] 请求完成(Filter): {} 总耗时: {}ms", 
-                      requestId, endTime, (endTime - startTime));
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        finish(request, profile);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                finish(request, profile);
+            }
+        }
+    }
+
+    private void finish(HttpServletRequest request, RequestProfile profile) {
+        profile.stop(RequestProfile.Stage.SERIALIZE);
+        long total = profile.getElapsedNanos();
+        metrics.record(profile, total);
+        if (logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+            logger.info("{} {} 耗时: {}", request.getMethod(), request.getRequestURI(), profile);
+        }
+    }
+
+    // 累计读取请求体的时间
+    private static final class TimedRequest extends HttpServletRequestWrapper {
+        private final RequestProfile profile;
+        private ServletInputStream input;
+
+        TimedRequest(HttpServletRequest request, RequestProfile profile) {
+            super(request);
+            this.profile = profile;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (input == null) {
+                input = new TimedInputStream(super.getInputStream(), profile);
+            }
+            return input;
+        }
+    }
+
+    private static final class TimedInputStream extends ServletInputStream {
+        private final ServletInputStream in;
+        private final RequestProfile profile;
+
+        TimedInputStream(ServletInputStream in, RequestProfile profile) {
+            this.in = in;
+            this.profile = profile;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long startTime = System.nanoTime();
+            try {
+                return in.read();
+            } finally {
+                profile.addSince(RequestProfile.Stage.READ, startTime);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long startTime = System.nanoTime();
+            try {
+                return in.read(b, off, len);
+            } finally {
+                profile.addSince(RequestProfile.Stage.READ, startTime);
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return in.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            in.setReadListener(readListener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package com.sensitivewords.config;
+
+import com.sensitivewords.utils.LatencyHistogram;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 各请求阶段耗时的汇总直方图，代替逐请求的日志行
+// 某阶段耗时为0（如GET请求没有请求体）时不计入该阶段，总耗时每个请求都计入
+@Component
+public class RequestTimingMetrics {
+    private final LatencyHistogram[] stages = new LatencyHistogram[RequestProfile.Stage.values().length];
+    private final LatencyHistogram total = new LatencyHistogram();
+
+    public RequestTimingMetrics() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(RequestProfile profile, long totalNanos) {
+        for (RequestProfile.Stage stage : RequestProfile.Stage.values()) {
+            long nanos = profile.getNanos(stage);
+            if (nanos > 0) {
+                stages[stage.ordinal()].record(nanos);
+            }
+        }
+        total.record(totalNanos);
+    }
+
+    // 阶段 -> 延迟汇总（纳秒）
+    public Map<String, LatencyHistogram.Summary> summarize() {
+        Map<String, LatencyHistogram.Summary> result = new LinkedHashMap<>();
+        for (RequestProfile.Stage stage : RequestProfile.Stage.values()) {
+            result.put(stage.label, stages[stage.ordinal()].summarize());
+        }
+        result.put("total", total.summarize());
+        return result;
+    }
+}
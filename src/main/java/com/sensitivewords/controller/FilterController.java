@@ -0,0 +1,246 @@
+package com.sensitivewords.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sensitivewords.config.RequestProfile;
+import com.sensitivewords.dto.FilterDTO;
+import com.sensitivewords.dto.FilterMode;
+import com.sensitivewords.dto.FilterResultDTO;
+import com.sensitivewords.utils.AhoCorasickAutomaton;
+import com.sensitivewords.utils.AutomatonSnapshot;
+import com.sensitivewords.utils.MatchKind;
+import com.sensitivewords.utils.ScanMetrics;
+import com.sensitivewords.utils.ScanResultCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+@RestController
+@RequestMapping("/filter")
+public class FilterController {
+    private static final Logger logger = LoggerFactory.getLogger(FilterController.class);
+
+    // 批量请求按块提交到线程池，每块的文本条数
+    private static final int BATCH_CHUNK_SIZE = 64;
+    // 同时在途的块数，限制单个请求占用的内存和线程
+    private static final int MAX_PENDING_CHUNKS = 4;
+
+    private final AhoCorasickAutomaton automaton;
+    private final ExecutorService batchExecutor;
+    private final ObjectMapper objectMapper;
+
+    public FilterController(AhoCorasickAutomaton automaton,
+                            @Qualifier("filterBatchExecutor") ExecutorService batchExecutor,
+                            ObjectMapper objectMapper) {
+        this.automaton = automaton;
+        this.batchExecutor = batchExecutor;
+        this.objectMapper = objectMapper;
+    }
+
+    // 过滤单条文本，mode 为 contains / matches / mask
+    // kind 为匹配语义 standard / leftmost-first / leftmost-longest，作用于 matches 和 mask
+    @PostMapping
+    public FilterResultDTO filter(@RequestBody FilterDTO filterDTO,
+                                  @RequestParam(defaultValue = "contains") String mode,
+                                  @RequestParam(defaultValue = "standard") String kind,
+                                  @RequestParam(defaultValue = "*") char maskChar,
+                                  HttpServletRequest request) {
+        FilterMode filterMode = FilterMode.of(mode);
+        MatchKind matchKind = MatchKind.of(kind);
+        long startTime = System.nanoTime();
+        AutomatonSnapshot snapshot = automaton.acquireSnapshot();
+        try {
+            return filter(automaton.getResultCache(), automaton.getMetrics(), snapshot, filterDTO.getContent(),
+                    filterMode, matchKind, maskChar);
+        } finally {
+            snapshot.unpin();
+            RequestProfile.of(request).addSince(RequestProfile.Stage.SCAN, startTime);
+        }
+    }
+
+    // 批量过滤：请求体为字符串数组，按输入顺序流式输出结果数组
+    // 边解析边按块提交扫描，边写出已完成的块，不在内存中保存完整的输入或结果
+    // 解析按块计时；扫描为各块在线程池中的耗时之和，可能超过请求的总耗时
+    // 响应头在写出第一块结果前已发出，Server-Timing在响应结束时作为trailer发送，客户端需支持读取trailer
+    // 请求体的第一个token在返回前同步检查，不是数组时直接返回400；写出第一块之前失败的，仍由异常处理返回错误状态码；
+    // 已经开始输出后失败的，状态码已无法修改，在数组末尾追加一个 {"error": 原因} 元素后结束数组，客户端据此判断批次不完整
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody batch(HttpServletRequest request, HttpServletResponse response,
+                                       @RequestParam(defaultValue = "contains") String mode,
+                                       @RequestParam(defaultValue = "standard") String kind,
+                                       @RequestParam(defaultValue = "*") char maskChar) throws IOException {
+        FilterMode filterMode = FilterMode.of(mode);
+        MatchKind matchKind = MatchKind.of(kind);
+        RequestProfile profile = RequestProfile.of(request);
+        long parseStart = System.nanoTime();
+        JsonParser parser = objectMapper.createParser(request.getInputStream());
+        try {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("请求体必须是字符串数组");
+            }
+        } catch (JsonProcessingException e) {
+            parser.close();
+            throw new IllegalArgumentException("请求体必须是字符串数组", e);
+        } catch (RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+        profile.addSince(RequestProfile.Stage.DECODE, parseStart);
+        profile.sendServerTimingAsTrailer(response);
+        return out -> {
+            // 整个批次使用同一版本的词表，写完响应后才解除pin
+            AutomatonSnapshot snapshot = automaton.acquireSnapshot();
+            ArrayDeque<Future<FilterResultDTO[]>> pending = new ArrayDeque<>();
+            // 失败时不自动补全未结束的数组，避免把截断的结果伪装成完整的数组
+            JsonGenerator generator = objectMapper.createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            boolean written = false;
+            try (parser) {
+                generator.writeStartArray();
+                String[] chunk = new String[BATCH_CHUNK_SIZE];
+                int size = 0;
+                long chunkStart = System.nanoTime();
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == JsonToken.VALUE_STRING) {
+                        chunk[size++] = parser.getText();
+                    } else if (token == JsonToken.VALUE_NULL) {
+                        chunk[size++] = null;
+                    } else {
+                        throw new IllegalArgumentException("数组元素必须是字符串");
+                    }
+                    if (size == BATCH_CHUNK_SIZE) {
+                        profile.addSince(RequestProfile.Stage.DECODE, chunkStart);
+                        pending.add(submit(profile, snapshot, chunk, size, filterMode, matchKind, maskChar));
+                        chunk = new String[BATCH_CHUNK_SIZE];
+                        size = 0;
+                        if (pending.size() >= MAX_PENDING_CHUNKS) {
+                            writeResults(profile, generator, pending.poll());
+                            written = true;
+                        }
+                        chunkStart = System.nanoTime();
+                    }
+                }
+                profile.addSince(RequestProfile.Stage.DECODE, chunkStart);
+                if (size > 0) {
+                    pending.add(submit(profile, snapshot, chunk, size, filterMode, matchKind, maskChar));
+                }
+                while (!pending.isEmpty()) {
+                    writeResults(profile, generator, pending.poll());
+                    written = true;
+                }
+                generator.writeEndArray();
+                generator.close();
+            } catch (IOException | RuntimeException e) {
+                if (!written) {
+                    // 还没有写出任何结果，缓冲中只有数组开头，丢弃后交给异常处理设置状态码
+                    if (e instanceof JsonProcessingException) {
+                        throw new IllegalArgumentException("请求体不是合法的JSON", e);
+                    }
+                    throw e;
+                }
+                logger.warn("批量过滤在输出过程中失败，已写出错误标记", e);
+                writeError(generator, e);
+            } finally {
+                // 解析或写出失败时取消尚未写出的块，不再占用线程池
+                pending.forEach(f -> f.cancel(true));
+                snapshot.unpin();
+            }
+        };
+    }
+
+    // 在已开始输出的结果数组末尾追加错误元素并结束数组；连接已断开时写出失败，只能放弃
+    private static void writeError(JsonGenerator generator, Exception e) throws IOException {
+        String message = e instanceof IllegalArgumentException ? e.getMessage()
+                : e instanceof JsonProcessingException ? "请求体不是合法的JSON" : "批量过滤失败";
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("error", message);
+            generator.writeEndObject();
+            generator.writeEndArray();
+        } finally {
+            generator.close();
+        }
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private Future<FilterResultDTO[]> submit(RequestProfile profile, AutomatonSnapshot snapshot, String[] texts,
+                                             int size, FilterMode mode, MatchKind kind, char maskChar) {
+        ScanResultCache cache = automaton.getResultCache();
+        ScanMetrics metrics = automaton.getMetrics();
+        return batchExecutor.submit(() -> {
+            // 每块单独pin住快照：请求提前失败时，仍在排队的块不会读到已释放的堆外表
+            if (!snapshot.pin()) {
+                throw new IllegalStateException("词表已被替换，批量过滤中止");
+            }
+            long startTime = System.nanoTime();
+            try {
+                FilterResultDTO[] results = new FilterResultDTO[size];
+                for (int i = 0; i < size; i++) {
+                    results[i] = filter(cache, metrics, snapshot, texts[i], mode, kind, maskChar);
+                }
+                return results;
+            } finally {
+                snapshot.unpin();
+                profile.addSince(RequestProfile.Stage.SCAN, startTime);
+            }
+        });
+    }
+
+    private static void writeResults(RequestProfile profile, JsonGenerator generator,
+                                     Future<FilterResultDTO[]> future) throws IOException {
+        FilterResultDTO[] results;
+        try {
+            results = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("批量过滤被中断");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("批量过滤失败", e.getCause());
+        }
+        long startTime = System.nanoTime();
+        for (FilterResultDTO result : results) {
+            generator.writeObject(result);
+        }
+        generator.flush();
+        profile.addSince(RequestProfile.Stage.SERIALIZE, startTime);
+    }
+
+    private static FilterResultDTO filter(ScanResultCache cache, ScanMetrics metrics, AutomatonSnapshot snapshot,
+                                          String text, FilterMode mode, MatchKind kind, char maskChar) {
+        long startTime = System.nanoTime();
+        FilterResultDTO result = new FilterResultDTO();
+        switch (mode) {
+            case CONTAINS -> result.setContains(cache.containsSensitiveWords(snapshot, text));
+            case MATCHES -> result.setMatches(cache.matchAllSensitiveWords(snapshot, text, kind));
+            case MASK -> result.setMasked(cache.mask(snapshot, text, maskChar, kind));
+        }
+        ScanMetrics.Operation operation = switch (mode) {
+            case CONTAINS -> ScanMetrics.Operation.CONTAINS;
+            case MATCHES -> ScanMetrics.Operation.MATCH;
+            case MASK -> ScanMetrics.Operation.REPLACE;
+        };
+        metrics.record(operation, text == null ? 0 : text.length(), startTime);
+        return result;
+    }
+}
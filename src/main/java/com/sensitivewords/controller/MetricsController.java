@@ -0,0 +1,43 @@
+package com.sensitivewords.controller;
+
+import com.sensitivewords.config.RequestTimingMetrics;
+import com.sensitivewords.utils.AhoCorasickAutomaton;
+import com.sensitivewords.utils.ScanResultCache;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 运行指标：扫描延迟分位数（按操作和文本长度区间，单位纳秒）、结果缓存计数和请求各阶段耗时
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+    private final AhoCorasickAutomaton automaton;
+    private final RequestTimingMetrics requestTiming;
+
+    public MetricsController(AhoCorasickAutomaton automaton, RequestTimingMetrics requestTiming) {
+        this.automaton = automaton;
+        this.requestTiming = requestTiming;
+    }
+
+    @GetMapping
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("scan", automaton.getMetrics().summarize());
+        metrics.put("resultCache", resultCache(automaton.getResultCache()));
+        metrics.put("request", requestTiming.summarize());
+        return metrics;
+    }
+
+    private static Map<String, Object> resultCache(ScanResultCache cache) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", cache.isEnabled());
+        stats.put("size", cache.size());
+        stats.put("hits", cache.getHitCount());
+        stats.put("misses", cache.getMissCount());
+        stats.put("evictions", cache.getEvictionCount());
+        return stats;
+    }
+}
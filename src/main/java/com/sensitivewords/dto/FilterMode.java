@@ -0,0 +1,18 @@
+package com.sensitivewords.dto;
+
+// 过滤模式：contains 只判断是否命中，matches 返回命中的词，mask 返回替换后的文本
+public enum FilterMode {
+    CONTAINS,
+    MATCHES,
+    MASK;
+
+    // 按请求参数解析，不区分大小写
+    public static FilterMode of(String value) {
+        for (FilterMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("不支持的过滤模式: " + value);
+    }
+}
@@ -0,0 +1,18 @@
+package com.sensitivewords.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+// 过滤结果，只输出请求模式对应的字段
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FilterResultDTO {
+    // 是否包含敏感词
+    private Boolean contains;
+    // 命中的敏感词
+    private List<String> matches;
+    // 敏感词替换后的文本
+    private String masked;
+}
@@ -2,38 +2,67 @@ package com.sensitivewords.utils;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import org.springframework.core.io.ClassPathResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor.AbortPolicy;
 import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class AhoCorasickAutomaton {
-    // 根节点
-    private final CompactTrieNode root = new CompactTrieNode();
-    // 为常见敏感词字符创建映射表
-    private static final int MAX_CHARS = 10000; // 根据实际情况调整
-    private final Map<Character, Integer> charToIndex = new ConcurrentHashMap<>();
-    private final char[] indexToChar = new char[MAX_CHARS];
-    private int nextCharIndex = 0;
+    private static final Logger logger = LoggerFactory.getLogger(AhoCorasickAutomaton.class);
+
+    // 当前发布的自动机快照，读线程无锁读取，写线程构建新快照后整体替换
+    private volatile AutomatonSnapshot snapshot = AutomatonSnapshot.empty();
     private final Map<String, String> stringPool = new ConcurrentHashMap<>();
-    private final List<String> sensitiveWordsList = new ArrayList<>();
 
-    // 线程池，用于处理敏感词的动态添加
+    // 编译后自动机文件路径，为空时每次启动都从词典重新构建
+    @Value("${sensitive.automaton-file:}")
+    private String automatonFile;
+
+    // 启动时加载的内置分类词库，逗号分隔的分类名（枚举名或中文名）；默认只加载综合词库，其余分类按需开启
+    @Value("${sensitive.categories:GENERAL}")
+    private String lexiconCategories = "GENERAL";
+
+    // 是否把状态转移表放在直接内存中，减少大词典下GC标记和复制的开销
+    @Value("${sensitive.off-heap:false}")
+    private boolean offHeap;
+
+    // 增量编辑数达到该值时在后台合并成新的基础层
+    @Value("${sensitive.delta-merge-threshold:256}")
+    private int mergeThreshold = 256;
+    // 是否已有合并任务在执行
+    private final AtomicBoolean merging = new AtomicBoolean();
+
+    // 扫描结果缓存的条数上限，为0时不缓存；长度超过上限的文本不缓存
+    @Value("${sensitive.result-cache.max-size:0}")
+    private long resultCacheSize;
+    @Value("${sensitive.result-cache.max-text-length:512}")
+    private int resultCacheMaxTextLength = 512;
+    private volatile ScanResultCache resultCache = ScanResultCache.disabled();
+
+    // 扫描延迟统计，包含结果缓存命中的请求
+    private final ScanMetrics metrics = new ScanMetrics();
+
+    // 线程池，用于处理敏感词的动态添加和增量合并
     private final ExecutorService executorService = new ThreadPoolExecutor(
             4, // 核心线程数
             16, // 最大线程数（根据负载调整）
@@ -43,41 +72,42 @@ public class AhoCorasickAutomaton {
             new CallerRunsPolicy() // 拒绝策略
     );
 
-    private final Cache<CompactTrieNode, Map<Character, CompactTrieNode>> failCache = Caffeine.newBuilder()
-            .maximumSize(10000) // 设置最大缓存大小
-            .build();
-
-    // 预分配字符索引
-    private final int[] charIndexCache = new int[65536]; // 支持所有 Unicode 字符
-
     // 添加获取敏感词的方法
     public String getSensitiveWord(int wordId) {
-        if (wordId >= 0 && wordId < sensitiveWordsList.size()) {
-            return sensitiveWordsList.get(wordId);
-        }
-        return null;
+        // 只读取堆内词表，无需pin
+        return snapshot.getSensitiveWord(wordId);
     }
-    private static final boolean[] isIgnoredChar = new boolean[65536];
-    static {
-        // 初始化忽略字符集
-        String ignoreChars = " \t\n\r,.;:\"'?!-()[]{}";
-        for (char c : ignoreChars.toCharArray()) {
-            isIgnoredChar[c] = true;
-        }
+
+    // 获取当前快照，需要在多次调用间保持一致视图时使用
+    // 未pin住快照：启用堆外存储时请改用acquireSnapshot()
+    public AutomatonSnapshot getSnapshot() {
+        return snapshot;
     }
 
-    private int getCharIndex(char c) {
-        int index = charIndexCache[c];
-        if (index == 0) {
-            if (nextCharIndex >= MAX_CHARS) {
-                throw new RuntimeException("字符集超出预设大小");
+    // 获取当前快照并pin住，用完后必须调用unpin()；堆内快照的pin/unpin为空操作
+    // 刚好遇到快照被替换、旧的堆外存储已释放时，重新读取新发布的快照
+    public AutomatonSnapshot acquireSnapshot() {
+        while (true) {
+            AutomatonSnapshot current = snapshot;
+            if (current.pin()) {
+                return current;
             }
-            index = nextCharIndex++;
-            charIndexCache[c] = index;
-            indexToChar[index] = c;
         }
-        
-        return index;
+    }
+
+    // 重复文本的扫描结果缓存，未启用时直接扫描
+    public ScanResultCache getResultCache() {
+        return resultCache;
+    }
+
+    // 启用扫描结果缓存，maxSize为0时关闭
+    public void enableResultCache(long maxSize, int maxTextLength) {
+        resultCache = ScanResultCache.create(maxSize, maxTextLength);
+    }
+
+    // 检测、匹配、替换按文本长度区间的延迟分位数
+    public ScanMetrics getMetrics() {
+        return metrics;
     }
 
     // 添加字符串池化方法
@@ -93,184 +123,242 @@ public class AhoCorasickAutomaton {
     // 构建AC自动机
     @PostConstruct
     public void init() {
+        if (resultCacheSize > 0) {
+            enableResultCache(resultCacheSize, resultCacheMaxTextLength);
+        }
+        Set<WordCategory> enabled = parseCategories(lexiconCategories);
         try {
-            // 读取敏感词字典
-            ClassPathResource resource = new ClassPathResource("dic/sensitiveWordsDic.dic");
-            BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8));
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (!line.isEmpty()) {
-                    addWord(line);
+            // 读取启用的分类词库，同一个词出现在多个词库中时分类合并
+            Map<WordCategory, List<String>> lexicons = LexiconLoader.loadBundled(enabled);
+            int total = lexicons.values().stream().mapToInt(List::size).sum();
+            List<String> words = new ArrayList<>(total);
+            int[] categories = new int[total];
+            for (Map.Entry<WordCategory, List<String>> entry : lexicons.entrySet()) {
+                for (String word : entry.getValue()) {
+                    categories[words.size()] = entry.getKey().mask();
+                    words.add(internString(word));
+                }
+            }
+
+            // 自动机文件由同一份词典生成时直接映射加载，跳过构建
+            long fingerprint = AutomatonFile.fingerprint(words, categories);
+            AutomatonSnapshot next = loadAutomatonFile(fingerprint);
+            if (next == null) {
+                // 重新加载时以空词表构建下一版本
+                AutomatonSnapshot.Builder builder = snapshot.toBuilder().clear();
+                for (int i = 0; i < words.size(); i++) {
+                    builder.addWord(words.get(i), categories[i]);
+                }
+                next = builder.build();
+                saveAutomatonFile(next, fingerprint);
+                if (offHeap) {
+                    next = next.toOffHeap();
                 }
             }
-            reader.close();
 
-            // 构建失败指针
-            buildFailurePointers();
+            // 在旁路构建完成后整体发布
+            publish(next);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    // 添加敏感词到Trie树
-    private void addWord(String word) {
-        // 先在词典池中查找或添加
-        word = internString(word);
-
-        CompactTrieNode current = root;
-        for (char c : word.toCharArray()) {
-            if (current.getChild(c) == null) {
-                current.addChild(c, new CompactTrieNode());
+    // 解析启用的分类配置，配置了不支持的分类时启动失败
+    static Set<WordCategory> parseCategories(String value) {
+        Set<WordCategory> categories = EnumSet.noneOf(WordCategory.class);
+        for (String name : value.split(",")) {
+            if (!name.isBlank()) {
+                categories.add(WordCategory.of(name.trim()));
             }
-            current = current.getChild(c);
         }
-        current.setEndOfWord(true);
-        // 存储敏感词索引
-        current.setWordId(sensitiveWordsList.size());
-        sensitiveWordsList.add(word);
+        if (categories.isEmpty()) {
+            throw new IllegalArgumentException("至少需要启用一个敏感词分类");
+        }
+        return categories;
     }
 
-    // 构建失败指针
-    private void buildFailurePointers() {
-        Queue<CompactTrieNode> queue = new LinkedList<>();
-
-        // 将第一级节点的失败指针指向根节点
-        for (CompactTrieNode node : root.getCommonChildren()) {
-            if (node != null) {
-                node.setFail(root);
-                queue.offer(node);
-            }
+    // 加载与词典指纹一致的自动机文件，文件不存在、已过期或损坏时返回null
+    private AutomatonSnapshot loadAutomatonFile(long fingerprint) {
+        if (automatonFile == null || automatonFile.isEmpty()) {
+            return null;
         }
-        if (root.getRareChildren() != null) {
-            for (CompactTrieNode node : root.getRareChildren().values()) {
-                node.setFail(root);
-                queue.offer(node);
+        Path path = Path.of(automatonFile);
+        try {
+            if (!Files.exists(path)) {
+                return null;
             }
+            Long stored = AutomatonFile.readFingerprint(path);
+            if (stored == null || stored != fingerprint) {
+                logger.info("自动机文件与词典不一致，重新构建: {}", path);
+                return null;
+            }
+            long startTime = System.nanoTime();
+            AutomatonSnapshot loaded = AutomatonFile.load(path);
+            logger.info("已映射加载自动机文件: {}, 敏感词 {}, 耗时 {}ms",
+                    path, loaded.size(), (System.nanoTime() - startTime) / 1_000_000);
+            return loaded.withVersion(snapshot.getVersion() + 1);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("自动机文件加载失败，重新构建: {}", path, e);
+            return null;
         }
+    }
 
-        // BFS构建其他节点的失败指针
-        while (!queue.isEmpty()) {
-            CompactTrieNode current = queue.poll();
+    private void saveAutomatonFile(AutomatonSnapshot built, long fingerprint) {
+        if (automatonFile == null || automatonFile.isEmpty()) {
+            return;
+        }
+        try {
+            AutomatonFile.write(built, fingerprint, Path.of(automatonFile));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("自动机文件写出失败: {}", automatonFile, e);
+        }
+    }
 
-            // 处理常见字符子节点
-            for (CompactTrieNode childNode : current.getCommonChildren()) {
-                if (childNode != null) {
-                    queue.offer(childNode);
-                    buildFailurePointerForChild(current, childNode);
-                }
-            }
+    // 检查文本是否包含敏感词
+    public boolean containsSensitiveWords(String text) {
+        long startTime = System.nanoTime();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return resultCache.containsSensitiveWords(current, text);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.CONTAINS, text == null ? 0 : text.length(), startTime);
+        }
+    }
 
-            // 处理非常见字符子节点
-            if (current.getRareChildren() != null) {
-                for (Map.Entry<Character, CompactTrieNode> entry : current.getRareChildren().entrySet()) {
-                    queue.offer(entry.getValue());
-                    buildFailurePointerForChild(current, entry.getValue());
-                }
-            }
+    // 检查文本是否包含属于策略中任一分类的敏感词，policy为WordCategory掩码的组合
+    public boolean containsSensitiveWords(String text, int policy) {
+        long startTime = System.nanoTime();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return current.containsSensitiveWords(text, policy);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.CONTAINS, text == null ? 0 : text.length(), startTime);
         }
     }
 
-    private void buildFailurePointerForChild(CompactTrieNode parent, CompactTrieNode child) {
-        CompactTrieNode failNode = parent.getFail();
-        char c = getCharFromChild(parent, child);
+    // 一次扫描返回命中的分类掩码，各租户用自己的策略掩码按位与即可
+    public int hitCategories(String text, int policy) {
+        long startTime = System.nanoTime();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return current.hitCategories(text, policy);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.CONTAINS, text == null ? 0 : text.length(), startTime);
+        }
+    }
 
-        while (failNode != null && failNode.getChild(c) == null) {
-            failNode = failNode.getFail();
+    // 按分类返回命中的敏感词
+    public Map<WordCategory, List<String>> matchByCategory(String text, int policy) {
+        long startTime = System.nanoTime();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return current.matchByCategory(text, policy);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.MATCH, text == null ? 0 : text.length(), startTime);
         }
+    }
+
+    // 把命中的敏感词替换为maskChar
+    public String mask(String text, char maskChar) {
+        return mask(text, maskChar, MatchKind.STANDARD);
+    }
 
-        if (failNode == null) {
-            child.setFail(root);
-        } else {
-            child.setFail(failNode.getChild(c));
+    // 按指定匹配语义替换敏感词
+    public String mask(String text, char maskChar, MatchKind kind) {
+        long startTime = System.nanoTime();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return resultCache.mask(current, text, maskChar, kind);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.REPLACE, text == null ? 0 : text.length(), startTime);
         }
     }
 
-    private char getCharFromChild(CompactTrieNode parent, CompactTrieNode child) {
-        // 在常见字符中查找
-        for (int i = 0; i < 256; i++) {
-            if (parent.getCommonChildren()[i] == child) {
-                return (char) i;
-            }
+    // 只替换分类与policy有交集的敏感词
+    public String mask(String text, char maskChar, MatchKind kind, int policy) {
+        long startTime = System.nanoTime();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return current.mask(text, maskChar, kind, policy);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.REPLACE, text == null ? 0 : text.length(), startTime);
         }
-        // 在非常见字符中查找
-        if (parent.getRareChildren() != null) {
-            for (Map.Entry<Character, CompactTrieNode> entry : parent.getRareChildren().entrySet()) {
-                if (entry.getValue() == child) {
-                    return entry.getKey();
-                }
-            }
+    }
+
+    // 替换结果写入调用方提供的缓冲区，返回替换区间数；返回0时不写入，直接使用原文
+    public int maskInto(CharSequence text, char maskChar, MatchKind kind, char[] out, int offset, MaskRanges ranges) {
+        long startTime = System.nanoTime();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return current.maskInto(text, maskChar, kind, out, offset, ranges);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.REPLACE, text == null ? 0 : text.length(), startTime);
         }
-        throw new IllegalStateException("无法找到子节点对应的字符");
     }
 
-    // 检查文本是否包含敏感词
-    public boolean containsSensitiveWords(String text) {
-        if (text == null || text.isEmpty()) {
-            return false;
-        }
-    
-        CompactTrieNode current = root;
-        int i = 0;
-        final int textLength = text.length();
-        
-        while (i < textLength) {
-            char c = text.charAt(i);
-            if (isIgnoredChar[c]) {
-                i++;
-                continue;
-            }
-            
-            // 使用缓存减少失败指针回溯
-            CompactTrieNode next = getNextNode(current, c);
-            if (next == null) {
-                // 当前位置无法匹配，不必每次都回到根节点
-                if (current == root) {
-                    i++; // 根节点匹配失败才向前移动
-                } else {
-                    current = root; // 否则回到根节点继续当前位置匹配
-                }
-            } else {
-                current = next;
-                i++; // 匹配成功，向前移动一位
-                
-                // 匹配到敏感词立即返回
-                if (current.isEndOfWord()) {
-                    return true;
-                }
-            }
+    public int maskInto(CharSequence text, char maskChar, MatchKind kind, CharBuffer out, MaskRanges ranges) {
+        long startTime = System.nanoTime();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return current.maskInto(text, maskChar, kind, out, ranges);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.REPLACE, text == null ? 0 : text.length(), startTime);
         }
-        return false;
     }
 
-    private CompactTrieNode getNextNode(CompactTrieNode current, char c) {
-        Map<Character, CompactTrieNode> cache = failCache.get(current, k -> new HashMap<>());
-        if (cache.containsKey(c)) {
-            return cache.get(c);
+    // 直接检查UTF-8字节，无需先解码为String
+    public boolean containsSensitiveWords(byte[] utf8, int offset, int length) {
+        long startTime = System.nanoTime();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return current.containsSensitiveWords(utf8, offset, length);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.CONTAINS, length, startTime);
         }
+    }
 
-        CompactTrieNode next = current.getChild(c);
-        if (next == null) {
-            CompactTrieNode failNode = current.getFail();
-            while (failNode != null && failNode.getChild(c) == null) {
-                failNode = failNode.getFail();
-            }
-            next = (failNode == null) ? root : failNode.getChild(c);
+    // 直接检查UTF-8字节缓冲区的 [position, limit)，支持堆内和直接内存
+    public boolean containsSensitiveWords(ByteBuffer utf8) {
+        long startTime = System.nanoTime();
+        int length = utf8.remaining();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return current.containsSensitiveWords(utf8);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.CONTAINS, length, startTime);
         }
+    }
 
-        cache.put(c, next);
-        return next;
+    // 遍历UTF-8字节缓冲区中的全部命中，偏移为相对position的字节偏移
+    public void forEachMatch(ByteBuffer utf8, MatchHandler handler) {
+        long startTime = System.nanoTime();
+        int length = utf8.remaining();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            current.forEachMatch(utf8, handler);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.MATCH, length, startTime);
+        }
     }
 
-    // 动态添加敏感词
+    // 动态添加敏感词：只编译增量层，不重建整个自动机
     public synchronized void addSensitiveWord(String word) {
         if (word == null || word.isEmpty()) {
             return;
         }
-        addWord(word);
-        buildFailurePointers();
+        publish(snapshot.withWord(internString(word), WordCategory.GENERAL.mask()));
+        mergeIfNeeded();
     }
 
     // 批量添加敏感词
@@ -278,12 +366,83 @@ public class AhoCorasickAutomaton {
         if (words == null || words.isEmpty()) {
             return;
         }
+        List<String> added = new ArrayList<>(words.size());
         for (String word : words) {
             if (word != null && !word.trim().isEmpty()) {
-                addWord(word.trim());
+                added.add(internString(word.trim()));
             }
         }
-        buildFailurePointers();
+        publish(snapshot.withWords(added, WordCategory.GENERAL.mask()));
+        mergeIfNeeded();
+    }
+
+    // 删除敏感词，归一化后相同的写法一并删除
+    public synchronized void removeSensitiveWord(String word) {
+        if (word == null || word.isEmpty()) {
+            return;
+        }
+        publish(snapshot.withoutWord(word));
+        mergeIfNeeded();
+    }
+
+    // 批量删除敏感词
+    public synchronized void removeSensitiveWords(List<String> words) {
+        if (words == null || words.isEmpty()) {
+            return;
+        }
+        publish(snapshot.withoutWords(words));
+        mergeIfNeeded();
+    }
+
+    // 增量编辑积累到阈值后提交后台合并，同一时间只有一个合并任务
+    private void mergeIfNeeded() {
+        if (snapshot.getPendingEdits() >= mergeThreshold && merging.compareAndSet(false, true)) {
+            executorService.execute(() -> {
+                try {
+                    mergeDelta();
+                } catch (RuntimeException e) {
+                    logger.error("增量词表合并失败", e);
+                } finally {
+                    merging.set(false);
+                }
+            });
+        }
+    }
+
+    // 把增量层合并成新的基础层：在锁外完整构建，发布时把构建期间新到的编辑重放到新基础层上
+    public void mergeDelta() {
+        AutomatonSnapshot from = snapshot;
+        if (from.getPendingEdits() == 0) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        AutomatonSnapshot merged = from.merge();
+        if (offHeap) {
+            merged = merged.toOffHeap();
+        }
+        synchronized (this) {
+            AutomatonSnapshot current = snapshot;
+            // 构建期间词典被整体重新加载或已被其他合并替换，放弃本次结果
+            if (!current.sharesBase(from)) {
+                merged.release();
+                return;
+            }
+            publish(current.rebase(merged, from));
+        }
+        logger.info("增量词表已合并: 编辑 {} 条, 敏感词 {}, 耗时 {}ms",
+                from.getPendingEdits(), merged.size(), (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    // 发布新快照
+    // 基础层被替换时释放旧基础层的堆外存储，仍在使用它的读线程unpin()后才真正释放
+    // 每次发布都是新的词表版本，清空结果缓存
+    private synchronized void publish(AutomatonSnapshot next) {
+        AutomatonSnapshot previous = snapshot;
+        snapshot = next;
+        resultCache.invalidateAll();
+        if (!next.sharesBase(previous)) {
+            previous.release();
+        }
     }
 
     // 动态添加敏感词（异步）
@@ -308,56 +467,72 @@ public class AhoCorasickAutomaton {
         executorService.shutdown();
     }
 
-    // 增量式构建失败指针
-    private void buildFailurePointersIncremental(CompactTrieNode node) {
-        Queue<CompactTrieNode> queue = new LinkedList<>();
-        queue.offer(node);
-
-        while (!queue.isEmpty()) {
-            CompactTrieNode current = queue.poll();
-
-            // 处理常见字符子节点
-            for (CompactTrieNode childNode : current.getCommonChildren()) {
-                if (childNode != null) {
-                    queue.offer(childNode);
-                    buildFailurePointerForChild(current, childNode);
-                }
-            }
+    // 批量匹配敏感词
+    public List<String> matchAllSensitiveWords(String text) {
+        return matchAllSensitiveWords(text, MatchKind.STANDARD);
+    }
 
-            // 处理非常见字符子节点
-            if (current.getRareChildren() != null) {
-                for (Map.Entry<Character, CompactTrieNode> entry : current.getRareChildren().entrySet()) {
-                    queue.offer(entry.getValue());
-                    buildFailurePointerForChild(current, entry.getValue());
-                }
-            }
+    // 按指定匹配语义匹配敏感词，返回可修改的副本
+    public List<String> matchAllSensitiveWords(String text, MatchKind kind) {
+        long startTime = System.nanoTime();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return new ArrayList<>(resultCache.matchAllSensitiveWords(current, text, kind));
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.MATCH, text == null ? 0 : text.length(), startTime);
         }
     }
 
-    // 批量匹配敏感词
-    public List<String> matchAllSensitiveWords(String text) {
-        List<String> matches = new ArrayList<>();
-        if (text == null || text.isEmpty()) {
-            return matches;
+    // 把命中的起止位置和wordId收集到collector，返回命中个数；词通过 getSensitiveWord(wordId) 取得
+    // 收集期间词表可能被替换，需要wordId与词表一致时先acquireSnapshot()再调用快照的同名方法
+    public int collectMatches(CharSequence text, MatchKind kind, MatchCollector collector) {
+        long startTime = System.nanoTime();
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return current.collectMatches(text, kind, collector);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.MATCH, text == null ? 0 : text.length(), startTime);
         }
+    }
 
-        CompactTrieNode current = root;
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
+    // 流式扫描：不把输入整体读入内存，命中以绝对字符偏移回调，返回扫描的字符数
+    public long scan(Reader reader, StreamMatchHandler handler) throws IOException {
+        long startTime = System.nanoTime();
+        long scanned = 0;
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return scanned = current.newStreamScanner(handler).scan(reader);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.MATCH, (int) Math.min(scanned, Integer.MAX_VALUE), startTime);
+        }
+    }
 
-            // 使用缓存减少失败指针回溯
-            CompactTrieNode next = getNextNode(current, c);
-            if (next == null) {
-                current = root;
-            } else {
-                current = next;
-            }
+    // 流式扫描UTF-8字节流
+    public long scan(InputStream in, StreamMatchHandler handler) throws IOException {
+        long startTime = System.nanoTime();
+        long scanned = 0;
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return scanned = current.newStreamScanner(handler).scan(in, StandardCharsets.UTF_8);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.MATCH, (int) Math.min(scanned, Integer.MAX_VALUE), startTime);
+        }
+    }
 
-            // 匹配到敏感词
-            if (current.isEndOfWord()) {
-                matches.add(sensitiveWordsList.get(current.getWordId()));
-            }
+    // 流式扫描UTF-8字节通道
+    public long scan(ReadableByteChannel channel, StreamMatchHandler handler) throws IOException {
+        long startTime = System.nanoTime();
+        long scanned = 0;
+        AutomatonSnapshot current = acquireSnapshot();
+        try {
+            return scanned = current.newStreamScanner(handler).scan(channel, StandardCharsets.UTF_8);
+        } finally {
+            current.unpin();
+            metrics.record(ScanMetrics.Operation.MATCH, (int) Math.min(scanned, Integer.MAX_VALUE), startTime);
         }
-        return matches;
     }
 }
\ No newline at end of file
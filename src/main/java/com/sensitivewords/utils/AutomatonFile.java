@@ -0,0 +1,235 @@
+package com.sensitivewords.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// 编译后自动机的二进制文件格式，全部字段为小端序：
+//   文件头：魔数、格式版本、字符类数、状态数、稠密状态数、词数、快照版本、词典指纹、各表长度
+//   int表：charClass, delta, sparseOffsets, sparseClasses, sparseTargets, fail, wordIdOf, outputLink, firstOutput,
+//         wordLengths, categories, outputCategories
+//   词表：每个词为 分类掩码 + UTF-8字节长度 + 字节
+//   文件尾：以上全部内容的CRC32C
+// 加载时通过FileChannel.map只读映射，int表直接作为IntTable视图使用，不复制到堆内；
+// 同一台机器上的多个JVM映射同一文件时共享页缓存
+public final class AutomatonFile {
+    // "SDAC"
+    public static final int MAGIC = 0x43414453;
+    // 2: 字符类1保留给可忽略字符
+    // 3: 增加分类掩码
+    public static final int FORMAT_VERSION = 3;
+
+    private static final int TABLE_COUNT = 12;
+    private static final int HEADER_BYTES = 6 * Integer.BYTES + 2 * Long.BYTES + TABLE_COUNT * Integer.BYTES;
+
+    private AutomatonFile() {
+    }
+
+    // 词典指纹：词数 + 归一化表、全部词UTF-8字节及分类的CRC32C，用于判断文件是否由当前词典和归一化规则生成
+    public static long fingerprint(List<String> words, int[] categories) {
+        return fingerprint(words, categories, CharNormalizer.standard());
+    }
+
+    static long fingerprint(List<String> words, int[] categories, CharNormalizer normalizer) {
+        CRC32C crc = new CRC32C();
+        ByteBuffer mask = ByteBuffer.allocate(Long.BYTES);
+        crc.update(mask.putLong(0, normalizer.tableHash()).array());
+        for (int i = 0; i < words.size(); i++) {
+            crc.update(words.get(i).getBytes(StandardCharsets.UTF_8));
+            crc.update(mask.putInt(0, categories[i]).array(), 0, Integer.BYTES);
+            crc.update('\n');
+        }
+        return ((long) words.size() << 32) | crc.getValue();
+    }
+
+    // 写出快照，先写临时文件再原子替换，正在映射旧文件的进程不受影响
+    public static void write(AutomatonSnapshot snapshot, long fingerprint, Path path) throws IOException {
+        if (snapshot.getPendingEdits() > 0) {
+            throw new IllegalArgumentException("快照含有未合并的增量，请先merge()再写出");
+        }
+        CompiledAutomaton automaton = snapshot.getAutomaton();
+        IntTable[] tables = tablesOf(automaton);
+        List<String> words = snapshot.getWords();
+
+        long size = HEADER_BYTES + Integer.BYTES;
+        size += (long) (Character.MAX_VALUE + 1) * Integer.BYTES;
+        for (IntTable table : tables) {
+            size += (long) table.length() * Integer.BYTES;
+        }
+        List<byte[]> encodedWords = new ArrayList<>(words.size());
+        for (String word : words) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            encodedWords.add(bytes);
+            size += 2 * Integer.BYTES + bytes.length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("自动机文件超过2GB，无法写出: " + size);
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC);
+        out.putInt(FORMAT_VERSION);
+        out.putInt(automaton.classCount);
+        out.putInt(automaton.stateCount);
+        out.putInt(automaton.denseStates);
+        out.putInt(words.size());
+        out.putLong(snapshot.getVersion());
+        out.putLong(fingerprint);
+        out.putInt(Character.MAX_VALUE + 1);
+        for (IntTable table : tables) {
+            out.putInt(table.length());
+        }
+        automaton.charClass.writeTo(out);
+        for (IntTable table : tables) {
+            table.writeTo(out);
+        }
+        for (int i = 0; i < encodedWords.size(); i++) {
+            byte[] bytes = encodedWords.get(i);
+            out.putInt(snapshot.getWordCategories(i));
+            out.putInt(bytes.length);
+            out.put(bytes);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue());
+        out.flip();
+
+        Path absolute = path.toAbsolutePath();
+        if (absolute.getParent() != null) {
+            Files.createDirectories(absolute.getParent());
+        }
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // 读取文件头中的词典指纹，文件不完整或格式不符时返回null
+    public static Long readFingerprint(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES + Integer.BYTES) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // 读满文件头
+            }
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                return null;
+            }
+            return header.getLong(6 * Integer.BYTES + Long.BYTES);
+        }
+    }
+
+    // 只读映射并校验文件，除字符类表外的int表直接引用映射区域
+    public static AutomatonSnapshot load(Path path) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES + Integer.BYTES || fileSize > Integer.MAX_VALUE) {
+                throw new IllegalStateException("自动机文件大小非法: " + fileSize);
+            }
+            // 映射在通道关闭后仍然有效
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        int size = buffer.capacity();
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("不是自动机文件: " + path);
+        }
+        int formatVersion = buffer.getInt(4);
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IllegalStateException("不支持的自动机文件版本: " + formatVersion);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(0, size - Integer.BYTES));
+        if ((int) crc.getValue() != buffer.getInt(size - Integer.BYTES)) {
+            throw new IllegalStateException("自动机文件校验和不匹配: " + path);
+        }
+
+        buffer.position(8);
+        int classCount = buffer.getInt();
+        int stateCount = buffer.getInt();
+        int denseStates = buffer.getInt();
+        int wordCount = buffer.getInt();
+        long version = buffer.getLong();
+        buffer.getLong(); // 词典指纹，见readFingerprint
+        int[] lengths = new int[TABLE_COUNT];
+        for (int i = 0; i < TABLE_COUNT; i++) {
+            lengths[i] = buffer.getInt();
+        }
+        checkLengths(lengths, classCount, stateCount, denseStates);
+
+        IntTable[] tables = new IntTable[TABLE_COUNT];
+        int offset = HEADER_BYTES;
+        for (int i = 0; i < TABLE_COUNT; i++) {
+            if ((long) offset + (long) lengths[i] * Integer.BYTES > size - Integer.BYTES) {
+                throw new IllegalStateException("自动机文件被截断: " + path);
+            }
+            tables[i] = IntTable.view(buffer, offset, lengths[i]);
+            offset += lengths[i] * Integer.BYTES;
+        }
+
+        List<String> words = new ArrayList<>(wordCount);
+        int[] wordCategories = new int[wordCount];
+        buffer.position(offset);
+        for (int i = 0; i < wordCount; i++) {
+            wordCategories[i] = buffer.getInt();
+            int length = buffer.getInt();
+            words.add(StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString());
+            buffer.position(buffer.position() + length);
+        }
+        if (buffer.position() != size - Integer.BYTES) {
+            throw new IllegalStateException("自动机文件词表长度不一致: " + path);
+        }
+
+        // 字符类表很小，展开为共享页而不是直接引用映射区域
+        CompiledAutomaton automaton = new CompiledAutomaton(CharClassTable.of(tables[0]), classCount, stateCount, denseStates,
+                tables[1], tables[2], tables[3], tables[4], tables[5], tables[6], tables[7], tables[8], tables[9],
+                tables[10], tables[11]);
+        return AutomatonSnapshot.of(automaton, Collections.unmodifiableList(words), wordCategories, version);
+    }
+
+    private static IntTable[] tablesOf(CompiledAutomaton automaton) {
+        return new IntTable[]{automaton.delta, automaton.sparseOffsets,
+                automaton.sparseClasses, automaton.sparseTargets, automaton.fail, automaton.wordIdOf,
+                automaton.outputLink, automaton.firstOutput, automaton.wordLengths, automaton.categories,
+                automaton.outputCategories};
+    }
+
+    // 校验各表长度与文件头一致，避免损坏的文件在扫描时越界
+    private static void checkLengths(int[] lengths, int classCount, int stateCount, int denseStates) {
+        boolean valid = classCount > 0 && stateCount > 0 && denseStates > 0 && denseStates <= stateCount
+                && lengths[0] == Character.MAX_VALUE + 1
+                && (long) lengths[1] == (long) denseStates * classCount
+                && lengths[2] == stateCount - denseStates + 1
+                && lengths[3] == lengths[4]
+                && lengths[5] == stateCount && lengths[6] == stateCount
+                && lengths[7] == stateCount && lengths[8] == stateCount
+                && lengths[9] >= 0
+                && lengths[10] == stateCount && lengths[11] == stateCount;
+        if (!valid) {
+            throw new IllegalStateException("自动机文件表长度不一致");
+        }
+    }
+}
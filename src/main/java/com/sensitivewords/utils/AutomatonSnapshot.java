@@ -0,0 +1,768 @@
+package com.sensitivewords.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.*;
+
+// AC自动机的不可变快照：由Builder在旁路构建完成后一次性发布，
+// 发布后状态转移表不再修改，读线程无需加锁，也不会看到构建到一半的状态
+// 敏感词按CharNormalizer.standard()归一化后编译，全角、大小写、繁简写法均可命中，
+// 标点、空白等可忽略字符在所有扫描方式中都被跳过
+// 每个词带有分类掩码（见WordCategory），带policy参数的方法只报告与策略掩码有交集的命中
+//
+// 单个词的增删（withWord/withoutWord）不重建整个自动机：快照由冻结的基础层和一层增量组成，
+// 新增的词单独编译成一个小自动机（wordId接在基础层之后），删除或被覆盖的词在基础层中记为墓碑，
+// 扫描时两层一起查询并跳过墓碑；增量积累到一定规模后由merge()合并成新的基础层
+public final class AutomatonSnapshot implements SensitiveWordMatcher {
+    // 编译后的状态转移表（发布后只读），属于基础层
+    private final CompiledAutomaton automaton;
+    // 基础层敏感词表，下标即wordId
+    private final List<String> words;
+    // 基础层各词的分类掩码，下标即wordId
+    private final int[] wordCategories;
+    // 快照版本号，每次发布递增
+    private final long version;
+    // 冻结的基础层，自身没有增量时指向自身
+    private final AutomatonSnapshot base;
+    // 增量层，没有新增的词时为null
+    private final AutomatonSnapshot delta;
+    // 基础层中已删除或被增量层覆盖的wordId，没有时为null
+    private final BitSet removed;
+    // 增量层各词的优先级（LEFTMOST_FIRST同一起点取优先级最小的词），下标为增量层内的wordId：
+    // 覆盖基础层的词沿用基础层的wordId，新词接在基础层之后，与merge()后的词表顺序一致
+    private final int[] deltaPriorities;
+    // 基础层冻结后的全部编辑，按发生顺序，合并时据此重放
+    private final List<Edit> edits;
+    // 基础层状态转移表所在的堆外存储，堆内快照为null
+    private final OffHeapStorage storage;
+    // UTF-8字节扫描，与字符串扫描共用同一个自动机；首次按字节扫描时创建，同一基础层上的各版本共用
+    private Utf8Automaton utf8Automaton;
+
+    private AutomatonSnapshot(CompiledAutomaton automaton, List<String> words, int[] wordCategories, long version) {
+        this(automaton, words, wordCategories, version, null, null, null, null, Collections.emptyList(), null);
+    }
+
+    private AutomatonSnapshot(CompiledAutomaton automaton, List<String> words, int[] wordCategories, long version,
+                              AutomatonSnapshot base, AutomatonSnapshot delta, BitSet removed, int[] deltaPriorities,
+                              List<Edit> edits, OffHeapStorage storage) {
+        this.automaton = automaton;
+        this.words = words;
+        this.wordCategories = wordCategories;
+        this.version = version;
+        this.base = base == null ? this : base;
+        this.delta = delta;
+        this.removed = removed;
+        this.deltaPriorities = deltaPriorities;
+        this.edits = edits;
+        this.storage = storage;
+    }
+
+    // 由已编译的自动机直接创建快照，用于从自动机文件加载
+    static AutomatonSnapshot of(CompiledAutomaton automaton, List<String> words, int[] wordCategories, long version) {
+        return new AutomatonSnapshot(automaton, words, wordCategories, version);
+    }
+
+    // 同一自动机和词表的另一版本，用于发布从自动机文件加载的快照
+    AutomatonSnapshot withVersion(long newVersion) {
+        return new AutomatonSnapshot(automaton, words, wordCategories, newVersion);
+    }
+
+    // 空快照
+    public static AutomatonSnapshot empty() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder(Collections.emptyList(), new int[0], 0);
+    }
+
+    // 以当前快照的词表为基础创建下一版本的构建器
+    // 有增量时词表为增删之后的结果：被删除的基础层词去掉，被覆盖的词在原位置换成编辑后的写法和分类，
+    // 新词按首次添加的顺序排在最后，词表顺序（即LEFTMOST_FIRST的优先级）与合并前一致
+    public Builder toBuilder() {
+        if (edits.isEmpty()) {
+            return new Builder(words, wordCategories, version + 1);
+        }
+        Map<String, Edit> latest = latestEdits(edits);
+        CharNormalizer normalizer = CharNormalizer.standard();
+        Builder builder = new Builder(Collections.emptyList(), new int[0], version + 1);
+        Set<String> placed = new HashSet<>();
+        for (int wordId = 0; wordId < words.size(); wordId++) {
+            String word = words.get(wordId);
+            String normalized = normalizer.normalize(word);
+            Edit edit = latest.get(normalized);
+            if (edit == null) {
+                builder.addWord(word, wordCategories[wordId]);
+            } else if (edit.categories != 0 && placed.add(normalized)) {
+                builder.addWord(edit.word, edit.categories);
+            }
+        }
+        for (Edit edit : latest.values()) {
+            if (edit.categories != 0 && !placed.contains(edit.normalized)) {
+                builder.addWord(edit.word, edit.categories);
+            }
+        }
+        return builder;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // wordId的个数：基础层加增量层，包括已删除的词
+    public int size() {
+        return delta == null ? words.size() : words.size() + delta.size();
+    }
+
+    // 基础层词表
+    public List<String> getWords() {
+        return words;
+    }
+
+    public String getSensitiveWord(int wordId) {
+        if (wordId >= 0 && wordId < size()) {
+            return getWord(wordId);
+        }
+        return null;
+    }
+
+    @Override
+    public String getWord(int wordId) {
+        return wordId < words.size() ? words.get(wordId) : delta.getWord(wordId - words.size());
+    }
+
+    // 词的分类掩码
+    public int getWordCategories(int wordId) {
+        return wordId < words.size() ? wordCategories[wordId] : delta.getWordCategories(wordId - words.size());
+    }
+
+    // 基础层冻结后尚未合并的编辑数
+    public int getPendingEdits() {
+        return edits.size();
+    }
+
+    // 添加一个词，返回下一版本的快照；已有的同一个词（归一化后相同）分类合并
+    // 只重新编译增量层，耗时与增量层大小成正比，与基础层无关
+    public AutomatonSnapshot withWord(String word, int categoryMask) {
+        return withWords(Collections.singletonList(word), categoryMask);
+    }
+
+    public AutomatonSnapshot withWords(Collection<String> newWords, int categoryMask) {
+        if (categoryMask == 0) {
+            throw new IllegalArgumentException("敏感词分类不能为空: " + newWords);
+        }
+        return withEdits(newWords, categoryMask);
+    }
+
+    // 删除一个词（按归一化后的写法，同一个词的其他写法一并删除），返回下一版本的快照
+    public AutomatonSnapshot withoutWord(String word) {
+        return withoutWords(Collections.singletonList(word));
+    }
+
+    public AutomatonSnapshot withoutWords(Collection<String> oldWords) {
+        return withEdits(oldWords, 0);
+    }
+
+    private AutomatonSnapshot withEdits(Collection<String> changed, int categoryMask) {
+        CharNormalizer normalizer = CharNormalizer.standard();
+        List<Edit> next = new ArrayList<>(edits.size() + changed.size());
+        next.addAll(edits);
+        for (String word : changed) {
+            String normalized = word == null ? "" : normalizer.normalize(word);
+            // 全部由可忽略字符组成的词无法命中，也无需删除
+            if (!normalized.isEmpty()) {
+                next.add(new Edit(word, normalized, categoryMask));
+            }
+        }
+        if (next.size() == edits.size()) {
+            return this;
+        }
+        return base.overlay(next, version + 1);
+    }
+
+    // 合并增量层，返回冻结的下一版本快照；完整构建一次自动机，适合在后台线程执行
+    public AutomatonSnapshot merge() {
+        return toBuilder().build();
+    }
+
+    // 把状态转移表复制到直接内存，返回同一版本的堆外快照；需先合并增量
+    // 不再使用时由所有者调用release()，读线程用pin()/unpin()包住每次使用
+    public AutomatonSnapshot toOffHeap() {
+        if (!edits.isEmpty()) {
+            throw new IllegalStateException("快照含有未合并的增量，请先merge()");
+        }
+        OffHeapStorage offHeap = new OffHeapStorage();
+        return new AutomatonSnapshot(automaton.toOffHeap(offHeap), words, wordCategories, version,
+                null, null, null, null, edits, offHeap);
+    }
+
+    public boolean isOffHeap() {
+        return storage != null;
+    }
+
+    OffHeapStorage getOffHeapStorage() {
+        return storage;
+    }
+
+    // 开始使用快照，返回false表示堆外存储已释放，应改用新发布的快照；堆内快照总是返回true
+    public boolean pin() {
+        return storage == null || storage.pin();
+    }
+
+    public void unpin() {
+        if (storage != null) {
+            storage.unpin();
+        }
+    }
+
+    // 所有者不再使用该快照（及同一基础层上的各版本），最后一个读线程unpin()后释放直接内存；堆内快照无操作
+    public void release() {
+        if (storage != null) {
+            storage.release();
+        }
+    }
+
+    // 两个快照是否基于同一个基础层
+    boolean sharesBase(AutomatonSnapshot other) {
+        return base == other.base;
+    }
+
+    // 把from之后的编辑重放到合并后的基础层上，from必须与本快照基于同一基础层且是本快照的早期版本
+    AutomatonSnapshot rebase(AutomatonSnapshot merged, AutomatonSnapshot from) {
+        List<Edit> remaining = new ArrayList<>(edits.subList(from.edits.size(), edits.size()));
+        return merged.base.overlay(remaining, version + 1);
+    }
+
+    // 在基础层上叠加一组编辑：同一个词以最后一次编辑为准，
+    // 基础层中对应的输出记为墓碑，编辑后仍存在的词连同合并后的分类编入增量层
+    private AutomatonSnapshot overlay(List<Edit> edits, long version) {
+        if (edits.isEmpty()) {
+            return new AutomatonSnapshot(automaton, words, wordCategories, version, this, null, null, null,
+                    edits, storage);
+        }
+        BitSet removed = new BitSet();
+        Builder deltaBuilder = new Builder(Collections.emptyList(), new int[0], 0);
+        Map<String, Edit> latest = latestEdits(edits);
+        int[] priorities = new int[latest.size()];
+        int added = 0;
+        for (Edit edit : latest.values()) {
+            int state = exactStateOf(edit.normalized);
+            int baseWordId = state >= 0 ? automaton.wordIdAt(state) : -1;
+            if (baseWordId >= 0) {
+                removed.set(baseWordId);
+            }
+            if (edit.categories != 0) {
+                priorities[deltaBuilder.size()] = baseWordId >= 0 ? baseWordId : words.size() + added++;
+                deltaBuilder.addWord(edit.word, edit.categories);
+            }
+        }
+        AutomatonSnapshot delta = deltaBuilder.size() == 0 ? null : deltaBuilder.build();
+        return new AutomatonSnapshot(automaton, words, wordCategories, version, this, delta,
+                removed.isEmpty() ? null : removed, delta == null ? null : Arrays.copyOf(priorities, delta.size()),
+                Collections.unmodifiableList(edits), storage);
+    }
+
+    // 按归一化后的写法归并编辑，结果中每个词只保留一项，按首次编辑的顺序排列：categories为0表示已删除，
+    // 否则为编辑后的分类（连续添加时合并，与Builder中重复词的处理一致）
+    private Map<String, Edit> latestEdits(List<Edit> edits) {
+        Map<String, Edit> latest = new LinkedHashMap<>();
+        for (Edit edit : edits) {
+            Edit previous = latest.get(edit.normalized);
+            int categories = 0;
+            if (edit.categories != 0) {
+                if (previous != null) {
+                    categories = previous.categories;
+                } else {
+                    int state = exactStateOf(edit.normalized);
+                    categories = state >= 0 ? automaton.categoriesAt(state) : 0;
+                }
+                categories |= edit.categories;
+            }
+            latest.put(edit.normalized, new Edit(edit.word, edit.normalized, categories));
+        }
+        return latest;
+    }
+
+    // 归一化后的词在基础层中的结束状态，不是基础层中的词时返回-1
+    private int exactStateOf(String normalized) {
+        int state = CompiledAutomaton.ROOT;
+        for (int i = 0; i < normalized.length(); i++) {
+            state = automaton.next(state, normalized.charAt(i));
+        }
+        // 从根节点读完整个词到达的状态是该词最长的、在Trie树中存在的后缀，长度相同即为该词本身
+        int wordId = automaton.wordIdAt(state);
+        return wordId >= 0 && automaton.wordLength(wordId) == normalized.length() ? state : -1;
+    }
+
+    public CompiledAutomaton getAutomaton() {
+        return automaton;
+    }
+
+    // 检查文本是否包含敏感词
+    @Override
+    public boolean containsSensitiveWords(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return false;
+        }
+
+        final CompiledAutomaton automaton = this.automaton;
+        int state = CompiledAutomaton.ROOT;
+        final int textLength = text.length();
+        for (int i = 0; i < textLength; i++) {
+            // 处于根节点时直接跳到下一个可能的首字符
+            if (state == CompiledAutomaton.ROOT && (i = automaton.skipToCandidate(text, i, textLength)) == textLength) {
+                break;
+            }
+            // 可忽略字符的转移停留在原状态，不会产生新的命中，无需单独跳过
+            state = automaton.next(state, text.charAt(i));
+            // 匹配到敏感词立即返回
+            if (automaton.isTerminal(state) && (removed == null || hasLiveOutput(state, WordCategory.ALL))) {
+                return true;
+            }
+        }
+        return delta != null && delta.containsSensitiveWords(text);
+    }
+
+    // 检查文本是否包含属于策略中任一分类的敏感词，每个字符只多一次按位与
+    public boolean containsSensitiveWords(CharSequence text, int policy) {
+        if (policy == WordCategory.ALL) {
+            return containsSensitiveWords(text);
+        }
+        if (text == null || text.isEmpty() || policy == 0) {
+            return false;
+        }
+        final CompiledAutomaton automaton = this.automaton;
+        int state = CompiledAutomaton.ROOT;
+        final int textLength = text.length();
+        for (int i = 0; i < textLength; i++) {
+            if (state == CompiledAutomaton.ROOT && (i = automaton.skipToCandidate(text, i, textLength)) == textLength) {
+                break;
+            }
+            state = automaton.next(state, text.charAt(i));
+            if ((automaton.outputCategories(state) & policy) != 0 && (removed == null || hasLiveOutput(state, policy))) {
+                return true;
+            }
+        }
+        return delta != null && delta.containsSensitiveWords(text, policy);
+    }
+
+    // 状态上是否有不在墓碑中、且分类与policy有交集的输出
+    private boolean hasLiveOutput(int state, int policy) {
+        for (int o = automaton.firstOutput(state); o >= 0; o = automaton.outputLinkAt(o)) {
+            if ((automaton.categoriesAt(o) & policy) != 0 && !removed.get(automaton.wordIdAt(o))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 一次扫描得到文本命中的全部分类（与policy按位与后），多个租户各自用自己的策略掩码与结果按位与即可
+    // 策略中的分类全部命中后提前返回
+    public int hitCategories(CharSequence text, int policy) {
+        if (text == null || text.isEmpty() || policy == 0) {
+            return 0;
+        }
+        final CompiledAutomaton automaton = this.automaton;
+        int hits = 0;
+        int state = CompiledAutomaton.ROOT;
+        final int textLength = text.length();
+        for (int i = 0; i < textLength; i++) {
+            if (state == CompiledAutomaton.ROOT && (i = automaton.skipToCandidate(text, i, textLength)) == textLength) {
+                break;
+            }
+            state = automaton.next(state, text.charAt(i));
+            int found = automaton.outputCategories(state) & policy;
+            if (found != 0 && removed != null) {
+                found = 0;
+                for (int o = automaton.firstOutput(state); o >= 0; o = automaton.outputLinkAt(o)) {
+                    if (!removed.get(automaton.wordIdAt(o))) {
+                        found |= automaton.categoriesAt(o) & policy;
+                    }
+                }
+            }
+            hits |= found;
+            if (hits == policy) {
+                return hits;
+            }
+        }
+        return delta == null ? hits : hits | delta.hitCategories(text, policy & ~hits);
+    }
+
+    // 按分类返回命中的敏感词，属于多个分类的词在每个分类下各出现一次；没有命中的分类不出现在结果中
+    // 每个分类下先列基础层的命中，再列增量层的命中
+    public Map<WordCategory, List<String>> matchByCategory(String text, int policy) {
+        Map<WordCategory, List<String>> matches = new EnumMap<>(WordCategory.class);
+        if (text == null || text.isEmpty()) {
+            return matches;
+        }
+        // 归一化后相同的词共用一个输出状态，按状态上合并后的分类归类
+        final CompiledAutomaton automaton = this.automaton;
+        WordCategory[] categories = WordCategory.values();
+        int state = CompiledAutomaton.ROOT;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            if (state == CompiledAutomaton.ROOT && (i = automaton.skipToCandidate(text, i, length)) == length) {
+                break;
+            }
+            int cls = automaton.classOf(text.charAt(i));
+            // 可忽略字符不改变状态，跳过以免重复报告上一个字符处的命中
+            if (cls == CompiledAutomaton.IGNORED_CLASS) {
+                continue;
+            }
+            state = automaton.nextState(state, cls);
+            if ((automaton.outputCategories(state) & policy) == 0) {
+                continue;
+            }
+            for (int o = automaton.firstOutput(state); o >= 0; o = automaton.outputLinkAt(o)) {
+                if (removed != null && removed.get(automaton.wordIdAt(o))) {
+                    continue;
+                }
+                int mask = automaton.categoriesAt(o) & policy;
+                for (WordCategory category : categories) {
+                    if ((mask & category.mask()) != 0) {
+                        matches.computeIfAbsent(category, c -> new ArrayList<>()).add(words.get(automaton.wordIdAt(o)));
+                    }
+                }
+            }
+        }
+        if (delta != null) {
+            delta.matchByCategory(text, policy).forEach((category, deltaMatches) ->
+                    matches.computeIfAbsent(category, c -> new ArrayList<>()).addAll(deltaMatches));
+        }
+        return matches;
+    }
+
+    // 匹配全部敏感词，包括互相重叠、互为后缀的词
+    public List<String> matchAllSensitiveWords(String text) {
+        return matchAllSensitiveWords(text, MatchKind.STANDARD);
+    }
+
+    // 按指定语义匹配敏感词，按命中顺序返回
+    public List<String> matchAllSensitiveWords(String text, MatchKind kind) {
+        List<String> matches = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return matches;
+        }
+        forEachMatch(text, kind, (start, end, wordId) -> matches.add(getWord(wordId)));
+        return matches;
+    }
+
+    // 按结束位置顺序遍历文本中的全部命中
+    @Override
+    public void forEachMatch(CharSequence text, MatchHandler handler) {
+        forEachMatch(text, MatchKind.STANDARD, handler);
+    }
+
+    // 遍历文本中的命中，起止位置对应原文（end不含）
+    // STANDARD按结束位置顺序边扫描边报告；其余语义先收集再筛选，按起点顺序报告
+    public void forEachMatch(CharSequence text, MatchKind kind, MatchHandler handler) {
+        forEachMatch(text, kind, WordCategory.ALL, handler);
+    }
+
+    // 只报告分类与policy有交集的命中
+    public void forEachMatch(CharSequence text, MatchKind kind, int policy, MatchHandler handler) {
+        if (kind == MatchKind.STANDARD) {
+            scan(text, policy, handler);
+            return;
+        }
+        MatchBuffer buffer = new MatchBuffer();
+        scan(text, policy, buffer);
+        buffer.select(kind, words.size(), deltaPriorities);
+        buffer.forEach(handler);
+    }
+
+    // 把命中收集到collector（先清空），返回命中个数；位置对应原文，顺序同forEachMatch
+    @Override
+    public int collectMatches(CharSequence text, MatchCollector collector) {
+        return collectMatches(text, MatchKind.STANDARD, WordCategory.ALL, collector);
+    }
+
+    public int collectMatches(CharSequence text, MatchKind kind, MatchCollector collector) {
+        return collectMatches(text, kind, WordCategory.ALL, collector);
+    }
+
+    // 只收集分类与policy有交集的命中；非STANDARD语义在collector自带的数组上筛选
+    public int collectMatches(CharSequence text, MatchKind kind, int policy, MatchCollector collector) {
+        collector.clear();
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        if (kind == MatchKind.STANDARD && delta == null) {
+            scan(text, policy, collector);
+        } else if (kind == MatchKind.STANDARD) {
+            // 两层的命中直接在collector自带的数组上排序
+            scan(text, policy, collector.buffer);
+            collector.selected();
+        } else {
+            scan(text, policy, collector.buffer);
+            collector.buffer.select(kind, words.size(), deltaPriorities);
+            collector.selected();
+        }
+        return collector.count();
+    }
+
+    // 把命中的敏感词替换为maskChar，重叠的命中一并覆盖
+    public String mask(String text, char maskChar) {
+        return mask(text, maskChar, MatchKind.STANDARD);
+    }
+
+    // 按指定语义选出命中后替换：先合并命中区间，再逐段批量复制原文、填充掩码
+    // 绝大多数文本没有命中，先做一遍无分配的检测，未命中时直接返回原字符串
+    public String mask(String text, char maskChar, MatchKind kind) {
+        return mask(text, maskChar, kind, WordCategory.ALL);
+    }
+
+    // 只替换分类与policy有交集的敏感词
+    public String mask(String text, char maskChar, MatchKind kind, int policy) {
+        if (text == null || text.isEmpty() || !containsSensitiveWords(text, policy)) {
+            return text;
+        }
+        MatchBuffer buffer = new MatchBuffer();
+        scan(text, policy, buffer);
+        buffer.select(kind, words.size(), deltaPriorities);
+        return buffer.mask(text, maskChar);
+    }
+
+    // 把替换后的文本写入 out[offset, offset + text.length())，合并后的替换区间写入ranges，返回区间数
+    // 返回0时不写入out，调用方直接使用原文；ranges可复用，整个过程不分配新对象
+    public int maskInto(CharSequence text, char maskChar, MatchKind kind, char[] out, int offset, MaskRanges ranges) {
+        ranges.clear();
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        if (offset < 0 || out.length - offset < text.length()) {
+            throw new IllegalArgumentException("输出缓冲区容量不足: 需要 " + text.length());
+        }
+        MatchBuffer buffer = ranges.buffer;
+        scan(text, buffer);
+        buffer.select(kind, words.size(), deltaPriorities);
+        if (buffer.mergeSpans() > 0) {
+            buffer.writeMasked(text, maskChar, out, offset);
+        }
+        return buffer.size();
+    }
+
+    // 同上，写入out的当前位置并推进position；返回0时不写入
+    public int maskInto(CharSequence text, char maskChar, MatchKind kind, CharBuffer out, MaskRanges ranges) {
+        ranges.clear();
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        if (out.remaining() < text.length()) {
+            throw new IllegalArgumentException("输出缓冲区容量不足: 需要 " + text.length());
+        }
+        MatchBuffer buffer = ranges.buffer;
+        scan(text, buffer);
+        buffer.select(kind, words.size(), deltaPriorities);
+        if (buffer.mergeSpans() > 0) {
+            buffer.writeMasked(text, maskChar, out);
+        }
+        return buffer.size();
+    }
+
+    // 扫描文本，报告每个位置上的全部输出（自身及字典后缀链）
+    private void scan(CharSequence text, MatchHandler handler) {
+        scan(text, WordCategory.ALL, handler);
+    }
+
+    // 有增量层时两层的命中先收进同一个缓冲区，按结束位置排序后再报告
+    private void scan(CharSequence text, int policy, MatchHandler handler) {
+        if (delta == null) {
+            scanLayer(text, policy, handler);
+            return;
+        }
+        MatchBuffer buffer = handler instanceof MatchBuffer ? (MatchBuffer) handler : new MatchBuffer();
+        scanLayer(text, policy, buffer);
+        int offset = words.size();
+        delta.scan(text, policy, (start, end, wordId) -> buffer.onMatch(start, end, offset + wordId));
+        buffer.sortByEnd();
+        if (buffer != handler) {
+            buffer.forEach(handler);
+        }
+    }
+
+    private void scanLayer(CharSequence text, int policy, MatchHandler handler) {
+        final CompiledAutomaton automaton = this.automaton;
+        int state = CompiledAutomaton.ROOT;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            if (state == CompiledAutomaton.ROOT && (i = automaton.skipToCandidate(text, i, length)) == length) {
+                break;
+            }
+            int cls = automaton.classOf(text.charAt(i));
+            if (cls == CompiledAutomaton.IGNORED_CLASS) {
+                continue;
+            }
+            state = automaton.nextState(state, cls);
+            for (int o = automaton.firstOutput(state); o >= 0; o = automaton.outputLinkAt(o)) {
+                int wordId = automaton.wordIdAt(o);
+                if ((automaton.categoriesAt(o) & policy) == 0 || (removed != null && removed.get(wordId))) {
+                    continue;
+                }
+                handler.onMatch(startOf(text, i, automaton.wordLength(wordId)), i + 1, wordId);
+            }
+        }
+    }
+
+    // 命中在end处结束、含length个非忽略字符时的起点，中间夹杂的可忽略字符一并计入
+    private int startOf(CharSequence text, int end, int length) {
+        int start = end;
+        for (int remaining = length - 1; remaining > 0; ) {
+            start--;
+            if (automaton.classOf(text.charAt(start)) != CompiledAutomaton.IGNORED_CLASS) {
+                remaining--;
+            }
+        }
+        return start;
+    }
+
+    // UTF-8字节扫描，命中与按String扫描解码后的文本一致，wordId为基础层词表下标
+    // Utf8Automaton只持有不可变的final字段，并发首次访问时各自创建也不影响结果
+    public Utf8Automaton getUtf8Automaton() {
+        AutomatonSnapshot owner = base;
+        Utf8Automaton result = owner.utf8Automaton;
+        if (result == null) {
+            result = new Utf8Automaton(automaton);
+            owner.utf8Automaton = result;
+        }
+        return result;
+    }
+
+    // 直接检查UTF-8字节，无需先解码为String
+    public boolean containsSensitiveWords(byte[] utf8, int offset, int length) {
+        return getUtf8Automaton().scan(utf8, offset, length, WordCategory.ALL, removed, null)
+                || delta != null && delta.containsSensitiveWords(utf8, offset, length);
+    }
+
+    // 直接检查UTF-8字节缓冲区的 [position, limit)，不改变position
+    public boolean containsSensitiveWords(ByteBuffer utf8) {
+        return getUtf8Automaton().scan(utf8, WordCategory.ALL, removed, null)
+                || delta != null && delta.containsSensitiveWords(utf8);
+    }
+
+    // 遍历UTF-8字节缓冲区中的全部命中，偏移为相对position的字节偏移，按结束位置顺序报告
+    public void forEachMatch(ByteBuffer utf8, MatchHandler handler) {
+        if (delta == null) {
+            getUtf8Automaton().scan(utf8, WordCategory.ALL, removed, handler);
+            return;
+        }
+        MatchBuffer buffer = new MatchBuffer();
+        getUtf8Automaton().scan(utf8, WordCategory.ALL, removed, buffer);
+        int offset = words.size();
+        delta.forEachMatch(utf8, (start, end, wordId) -> buffer.onMatch(start, end, offset + wordId));
+        buffer.sortByEnd();
+        buffer.forEach(handler);
+    }
+
+    // 创建流式扫描器，整条流使用同一版本的自动机；有增量层时两层的扫描器读同样的分块
+    public StreamScanner newStreamScanner(StreamMatchHandler handler) {
+        if (delta == null && removed == null) {
+            return new StreamScanner(automaton, handler);
+        }
+        StreamScanner overlay = null;
+        if (delta != null) {
+            int offset = words.size();
+            overlay = delta.newStreamScanner((start, end, wordId) -> handler.onMatch(start, end, offset + wordId));
+        }
+        return new StreamScanner(automaton, handler, removed, overlay);
+    }
+
+    // 基础层冻结后的一次编辑，categories为0表示删除
+    private static final class Edit {
+        final String word;
+        final String normalized;
+        final int categories;
+
+        Edit(String word, String normalized, int categories) {
+            this.word = word;
+            this.normalized = normalized;
+            this.categories = categories;
+        }
+    }
+
+    // 快照构建器，非线程安全，由写线程独占使用
+    // 每次build()都会重新生成一棵全新的Trie树，不会触碰已发布的快照
+    public static final class Builder {
+        private final List<String> words;
+        // 各词的分类掩码，与words一一对应
+        private int[] categories;
+        private final long version;
+
+        private Builder(List<String> baseWords, int[] baseCategories, long version) {
+            this.words = new ArrayList<>(baseWords);
+            this.categories = Arrays.copyOf(baseCategories, Math.max(16, baseWords.size()));
+            this.version = version;
+        }
+
+        // 未指定分类的词归入GENERAL
+        public Builder addWord(String word) {
+            return addWord(word, WordCategory.GENERAL.mask());
+        }
+
+        public Builder addWord(String word, int categoryMask) {
+            if (categoryMask == 0) {
+                throw new IllegalArgumentException("敏感词分类不能为空: " + word);
+            }
+            if (word != null && !word.isEmpty()) {
+                if (words.size() == categories.length) {
+                    categories = Arrays.copyOf(categories, categories.length * 2);
+                }
+                categories[words.size()] = categoryMask;
+                words.add(word);
+            }
+            return this;
+        }
+
+        public Builder addWords(Collection<String> newWords) {
+            return addWords(newWords, WordCategory.GENERAL.mask());
+        }
+
+        public Builder addWords(Collection<String> newWords, int categoryMask) {
+            for (String word : newWords) {
+                addWord(word, categoryMask);
+            }
+            return this;
+        }
+
+        // 清空词表，用于整体重新加载词典
+        public Builder clear() {
+            words.clear();
+            return this;
+        }
+
+        public int size() {
+            return words.size();
+        }
+
+        // 构建并冻结自动机，Trie树中存放归一化后的词，词表保留原始写法
+        // 归一化后相同的词共用一个输出状态，分类掩码合并，输出的wordId取最先添加的一个
+        public AutomatonSnapshot build() {
+            CharNormalizer normalizer = CharNormalizer.standard();
+            CompactTrieNode root = new CompactTrieNode();
+            for (int wordId = 0; wordId < words.size(); wordId++) {
+                String normalized = normalizer.normalize(words.get(wordId));
+                // 全部由可忽略字符组成的词无法命中
+                if (!normalized.isEmpty()) {
+                    addWord(root, normalized, wordId, categories[wordId]);
+                }
+            }
+            return new AutomatonSnapshot(CompiledAutomaton.compile(root, normalizer),
+                    Collections.unmodifiableList(new ArrayList<>(words)), Arrays.copyOf(categories, words.size()), version);
+        }
+
+        // 添加敏感词到Trie树
+        private static void addWord(CompactTrieNode root, String word, int wordId, int categoryMask) {
+            CompactTrieNode current = root;
+            for (char c : word.toCharArray()) {
+                if (current.getChild(c) == null) {
+                    current.addChild(c, new CompactTrieNode());
+                }
+                current = current.getChild(c);
+            }
+            // 存储敏感词索引，重复的词保留靠前的wordId，LEFTMOST_FIRST按词表顺序取词
+            if (!current.isEndOfWord()) {
+                current.setEndOfWord(true);
+                current.setWordId(wordId);
+            }
+            current.addCategories(categoryMask);
+        }
+    }
+}
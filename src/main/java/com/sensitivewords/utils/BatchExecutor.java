@@ -0,0 +1,186 @@
+package com.sensitivewords.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+// 批量任务专用的工作窃取线程池：线程数固定，不与JVM公共ForkJoinPool争抢，
+// 也不会因为Web容器线程多而超额占用CPU；结果按输入顺序返回，并记录每批耗时
+public final class BatchExecutor implements AutoCloseable {
+    private final ForkJoinPool pool;
+    private final int parallelism;
+
+    // 批次统计
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder itemCount = new LongAdder();
+    private final LongAdder totalTime = new LongAdder();
+    private final AtomicLong maxTime = new AtomicLong();
+    private volatile long lastTime;
+
+    public BatchExecutor(int parallelism) {
+        this(parallelism, "sensitive-batch");
+    }
+
+    public BatchExecutor(int parallelism, String threadNamePrefix) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("并行度必须大于0: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        AtomicInteger index = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName(threadNamePrefix + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    // 进程内共享的实例，并行度等于CPU核数，首次使用时创建
+    public static BatchExecutor shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    private static final class SharedHolder {
+        private static final BatchExecutor INSTANCE = new BatchExecutor(Runtime.getRuntime().availableProcessors());
+    }
+
+    // 并行映射items，返回与输入顺序一致的结果
+    @SuppressWarnings("unchecked")
+    public <T, R> List<R> map(List<T> items, Function<? super T, ? extends R> mapper) {
+        long startTime = System.nanoTime();
+        Object[] values = items.toArray();
+        Object[] results = new Object[values.length];
+        if (values.length > 0) {
+            // 每个线程约分到4块，便于空闲线程窃取长文本所在的块
+            int grain = Math.max(1, values.length / (parallelism * 4));
+            pool.invoke(new MapTask(values, (Function<Object, Object>) mapper, results, 0, values.length, grain));
+        }
+        record(values.length, System.nanoTime() - startTime);
+        return (List<R>) Arrays.asList(results);
+    }
+
+    // 并行执行action(i)，i属于[from, to)，全部完成后返回；区间不大于grain时直接在当前线程执行
+    // 用于构建自动机等内部计算，不计入批次统计
+    public void forRange(int from, int to, int grain, IntConsumer action) {
+        if (to - from <= grain) {
+            for (int i = from; i < to; i++) {
+                action.accept(i);
+            }
+            return;
+        }
+        pool.invoke(new RangeTask(action, from, to, Math.max(grain, (to - from) / (parallelism * 4))));
+    }
+
+    private void record(int items, long duration) {
+        batchCount.increment();
+        itemCount.add(items);
+        totalTime.add(duration);
+        maxTime.accumulateAndGet(duration, Math::max);
+        lastTime = duration;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public BatchStats getBatchStats() {
+        long batches = batchCount.sum();
+        long time = totalTime.sum();
+        return new BatchStats(batches, itemCount.sum(), time, maxTime.get(), lastTime,
+                batches > 0 ? (double) time / batches : 0);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // 二分拆分 [from, to)，块不大于grain时顺序执行
+    private static final class MapTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] values;
+        private final Function<Object, Object> mapper;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        MapTask(Object[] values, Function<Object, Object> mapper, Object[] results, int from, int to, int grain) {
+            this.values = values;
+            this.mapper = mapper;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    results[i] = mapper.apply(values[i]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MapTask(values, mapper, results, from, mid, grain),
+                    new MapTask(values, mapper, results, mid, to, grain));
+        }
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer action;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        RangeTask(IntConsumer action, int from, int to, int grain) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(action, from, mid, grain), new RangeTask(action, mid, to, grain));
+        }
+    }
+
+    // 批次统计类
+    public static class BatchStats {
+        public final long batchCount;
+        public final long itemCount;
+        public final long totalTimeNs;
+        public final long maxTimeNs;
+        public final long lastTimeNs;
+        public final double avgTimeNs;
+
+        public BatchStats(long batchCount, long itemCount, long totalTimeNs, long maxTimeNs, long lastTimeNs,
+                          double avgTimeNs) {
+            this.batchCount = batchCount;
+            this.itemCount = itemCount;
+            this.totalTimeNs = totalTimeNs;
+            this.maxTimeNs = maxTimeNs;
+            this.lastTimeNs = lastTimeNs;
+            this.avgTimeNs = avgTimeNs;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.sensitivewords.utils;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 两级字符类表：字符高8位选页，低8位在页内取字符类，每页256个char
+// 页在进程内按内容去重：全零页（词典中未出现的字符）、只含可忽略字符的页，
+// 以及同一词典/归一化规则产生的相同页，所有自动机实例共享同一份不可变数组；
+// 页池只弱引用各页，不再被任何表使用的页随GC回收
+// 相比每个实例一张 int[65536]（256KB），中文词典通常只占用几十个独立页，扫描时的缓存占用随之下降
+public final class CharClassTable {
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int PAGE_COUNT = (Character.MAX_VALUE + 1) >>> PAGE_BITS;
+    // 页内用char保存字符类
+    public static final int MAX_CLASS = Character.MAX_VALUE;
+
+    private static final ConcurrentHashMap<PageKey, PageKey> pagePool = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<char[]> stalePages = new ReferenceQueue<>();
+
+    private final char[][] pages;
+
+    private CharClassTable(char[][] pages) {
+        this.pages = pages;
+    }
+
+    // classes的下标为字符，长度须为65536
+    public static CharClassTable of(int[] classes) {
+        return of(IntTable.wrap(classes));
+    }
+
+    public static CharClassTable of(IntTable classes) {
+        if (classes.length() != Character.MAX_VALUE + 1) {
+            throw new IllegalArgumentException("字符类表长度必须为65536: " + classes.length());
+        }
+        char[][] pages = new char[PAGE_COUNT][];
+        char[] page = new char[PAGE_SIZE];
+        for (int p = 0; p < PAGE_COUNT; p++) {
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                int cls = classes.get((p << PAGE_BITS) | i);
+                if (cls < 0 || cls > MAX_CLASS) {
+                    throw new IllegalStateException("字符类超出范围: " + cls);
+                }
+                page[i] = (char) cls;
+            }
+            char[] shared = intern(page);
+            pages[p] = shared;
+            if (shared == page) {
+                page = new char[PAGE_SIZE];
+            }
+        }
+        return new CharClassTable(pages);
+    }
+
+    // 在本表基础上修改少量字符的字符类，未改动的页与本表共用，不必遍历全部65536个字符
+    // 改动过的页不进入页池：小自动机（增量层）随编辑频繁替换，去重的收益抵不过每页一次哈希
+    CharClassTable with(char[] chars, int[] classes, int count) {
+        char[][] result = pages.clone();
+        boolean[] copied = new boolean[PAGE_COUNT];
+        for (int i = 0; i < count; i++) {
+            int cls = classes[i];
+            if (cls < 0 || cls > MAX_CLASS) {
+                throw new IllegalStateException("字符类超出范围: " + cls);
+            }
+            int p = chars[i] >>> PAGE_BITS;
+            if (!copied[p]) {
+                result[p] = result[p].clone();
+                copied[p] = true;
+            }
+            result[p][chars[i] & PAGE_MASK] = (char) cls;
+        }
+        return new CharClassTable(result);
+    }
+
+    public int classOf(char c) {
+        return pages[c >>> PAGE_BITS][c & PAGE_MASK];
+    }
+
+    // 本表引用的不同页数
+    public int distinctPages() {
+        return (int) Arrays.stream(pages).map(IdentityKey::new).distinct().count();
+    }
+
+    // 页池中存活的页数
+    static int pooledPages() {
+        expungeStalePages();
+        return pagePool.size();
+    }
+
+    // 以小端序写出全部65536个字符类（int），与IntTable格式一致
+    void writeTo(ByteBuffer out) {
+        for (char[] page : pages) {
+            for (char cls : page) {
+                out.putInt(cls);
+            }
+        }
+    }
+
+    // 返回进程内内容相同的页，没有时登记page本身
+    private static char[] intern(char[] page) {
+        expungeStalePages();
+        PageKey probe = new PageKey(page);
+        while (true) {
+            PageKey existing = pagePool.get(probe);
+            if (existing == null) {
+                PageKey key = new PageKey(new PageReference(page, stalePages));
+                if (pagePool.putIfAbsent(key, key) == null) {
+                    return page;
+                }
+                continue;
+            }
+            char[] shared = existing.page();
+            if (shared != null) {
+                return shared;
+            }
+            pagePool.remove(existing, existing);
+        }
+    }
+
+    private static void expungeStalePages() {
+        Reference<? extends char[]> reference;
+        while ((reference = stalePages.poll()) != null) {
+            PageKey key = ((PageReference) reference).key;
+            pagePool.remove(key, key);
+        }
+    }
+
+    private static final class PageReference extends WeakReference<char[]> {
+        PageKey key;
+
+        PageReference(char[] page, ReferenceQueue<char[]> queue) {
+            super(page, queue);
+        }
+    }
+
+    // 页池的键：查询时强引用待比较的页，登记后只弱引用
+    private static final class PageKey {
+        private final int hash;
+        private final char[] probe;
+        private final PageReference reference;
+
+        PageKey(char[] probe) {
+            this.hash = Arrays.hashCode(probe);
+            this.probe = probe;
+            this.reference = null;
+        }
+
+        PageKey(PageReference reference) {
+            this.hash = Arrays.hashCode(reference.get());
+            this.probe = null;
+            this.reference = reference;
+            reference.key = this;
+        }
+
+        char[] page() {
+            return probe != null ? probe : reference.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PageKey)) {
+                return false;
+            }
+            PageKey other = (PageKey) o;
+            char[] page = page();
+            char[] otherPage = other.page();
+            // 已被回收的页只与自身相等
+            return hash == other.hash && page != null && otherPage != null && Arrays.equals(page, otherPage);
+        }
+    }
+
+    private static final class IdentityKey {
+        private final Object value;
+
+        IdentityKey(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).value == value;
+        }
+    }
+}
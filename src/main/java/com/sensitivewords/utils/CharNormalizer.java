@@ -0,0 +1,202 @@
+package com.sensitivewords.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+// 字符归一化表：把等价字符折叠为同一个规范字符，并标记可忽略字符
+// 编译自动机时折叠关系直接写入字符类映射（见CompiledAutomaton），扫描时不做额外转换，
+// 也不会生成归一化后的文本副本，命中位置仍然对应原文
+// 标准规则：全角ASCII转半角、英文大写转小写、繁体转简体（dic/t2s.txt）、
+// 空白/标点/零宽字符可忽略
+public final class CharNormalizer {
+    private static final Logger logger = LoggerFactory.getLogger(CharNormalizer.class);
+
+    // 不做任何归一化
+    public static final CharNormalizer NONE = new CharNormalizer(identity(), new boolean[Character.MAX_VALUE + 1]);
+
+    private static final String T2S_RESOURCE = "dic/t2s.txt";
+    // 原有的半角忽略字符
+    private static final String IGNORABLE_ASCII = " \t\n\r,.;:\"'?!-()[]{}";
+    // 中文标点及常见分隔符号，全角ASCII标点折叠为半角后同样可忽略
+    private static final String IGNORABLE_CJK = "　、。，；：？！“”‘’（）【】《》〈〉「」『』〔〕…—～·•";
+    // 零宽字符
+    private static final String IGNORABLE_INVISIBLE = "\u200B\u200C\u200D\u2060\uFEFF";
+
+    private final char[] fold;
+    private final boolean[] ignorable;
+    // 折叠关系的逆映射和只标出可忽略字符的字符类表，编译小自动机时使用，首次使用时构建
+    private volatile Variants variants;
+    private volatile CharClassTable ignorableClasses;
+    private volatile long tableHash;
+
+    private CharNormalizer(char[] fold, boolean[] ignorable) {
+        this.fold = fold;
+        this.ignorable = ignorable;
+    }
+
+    // 标准归一化表，首次使用时加载
+    public static CharNormalizer standard() {
+        return StandardHolder.INSTANCE;
+    }
+
+    private static final class StandardHolder {
+        private static final CharNormalizer INSTANCE = buildStandard();
+    }
+
+    private static CharNormalizer buildStandard() {
+        char[] fold = identity();
+        // 全角ASCII（U+FF01 ~ U+FF5E）-> 半角
+        for (char c = '！'; c <= '～'; c++) {
+            fold[c] = (char) (c - 0xFEE0);
+        }
+        loadTraditionalToSimplified(fold);
+        // 大写转小写放在最后，全角大写字母先折叠为半角再转小写
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            char folded = fold[c];
+            if (folded >= 'A' && folded <= 'Z') {
+                fold[c] = (char) (folded + ('a' - 'A'));
+            }
+        }
+
+        boolean[] ignorable = new boolean[Character.MAX_VALUE + 1];
+        for (String chars : new String[]{IGNORABLE_ASCII, IGNORABLE_CJK, IGNORABLE_INVISIBLE}) {
+            for (char c : chars.toCharArray()) {
+                ignorable[c] = true;
+            }
+        }
+        // 折叠后是可忽略字符的同样可忽略（如全角逗号）
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (ignorable[fold[c]]) {
+                ignorable[c] = true;
+            }
+        }
+        return new CharNormalizer(fold, ignorable);
+    }
+
+    private static void loadTraditionalToSimplified(char[] fold) {
+        try (InputStream in = CharNormalizer.class.getClassLoader().getResourceAsStream(T2S_RESOURCE)) {
+            if (in == null) {
+                logger.warn("未找到繁简映射表 {}，跳过繁体转简体", T2S_RESOURCE);
+                return;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            int count = 0;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() == 2 && !line.startsWith("#")) {
+                    fold[line.charAt(0)] = line.charAt(1);
+                    count++;
+                }
+            }
+            logger.info("加载繁简映射 {} 条", count);
+        } catch (IOException e) {
+            throw new RuntimeException("加载繁简映射表失败", e);
+        }
+    }
+
+    private static char[] identity() {
+        char[] fold = new char[Character.MAX_VALUE + 1];
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            fold[c] = (char) c;
+        }
+        return fold;
+    }
+
+    // 字符对应的规范字符
+    public char fold(char c) {
+        return fold[c];
+    }
+
+    public boolean isIgnorable(char c) {
+        return ignorable[c];
+    }
+
+    // 折叠为c的其他字符（不含c本身和可忽略字符）
+    char[] variantsOf(char c) {
+        Variants result = variants;
+        if (result == null) {
+            result = new Variants(fold, ignorable);
+            variants = result;
+        }
+        return Arrays.copyOfRange(result.chars, result.start[c], result.start[c + 1]);
+    }
+
+    // 可忽略字符为IGNORED_CLASS、其余字符未映射的字符类表，小自动机在此基础上只填入自己的字符
+    CharClassTable ignorableClasses() {
+        CharClassTable result = ignorableClasses;
+        if (result == null) {
+            int[] classes = new int[Character.MAX_VALUE + 1];
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                if (ignorable[c]) {
+                    classes[c] = CompiledAutomaton.IGNORED_CLASS;
+                }
+            }
+            result = CharClassTable.of(classes);
+            ignorableClasses = result;
+        }
+        return result;
+    }
+
+    // 折叠表和可忽略表的CRC32C，写入自动机文件的指纹：t2s.txt或忽略字符变化后，旧文件不再被映射加载
+    long tableHash() {
+        long result = tableHash;
+        if (result == 0) {
+            CRC32C crc = new CRC32C();
+            byte[] bytes = new byte[(Character.MAX_VALUE + 1) * 3];
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                bytes[c * 3] = (byte) (fold[c] >>> 8);
+                bytes[c * 3 + 1] = (byte) fold[c];
+                bytes[c * 3 + 2] = (byte) (ignorable[c] ? 1 : 0);
+            }
+            crc.update(bytes);
+            // 最高位置1，与未计算的0区分
+            result = crc.getValue() | Long.MIN_VALUE;
+            tableHash = result;
+        }
+        return result;
+    }
+
+    // 归一化敏感词：折叠每个字符并去掉可忽略字符，用于构建Trie树
+    public String normalize(String word) {
+        StringBuilder sb = new StringBuilder(word.length());
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (!ignorable[c]) {
+                sb.append(fold[c]);
+            }
+        }
+        return sb.toString();
+    }
+
+    // 按规范字符分组的逆映射（CSR布局）：规范字符c的其他写法为 chars[start[c], start[c + 1])
+    private static final class Variants {
+        final int[] start = new int[Character.MAX_VALUE + 2];
+        final char[] chars;
+
+        Variants(char[] fold, boolean[] ignorable) {
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                if (fold[c] != c && !ignorable[c]) {
+                    start[fold[c] + 1]++;
+                }
+            }
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                start[c + 1] += start[c];
+            }
+            chars = new char[start[Character.MAX_VALUE + 1]];
+            int[] next = Arrays.copyOf(start, Character.MAX_VALUE + 1);
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                if (fold[c] != c && !ignorable[c]) {
+                    chars[next[fold[c]]++] = (char) c;
+                }
+            }
+        }
+    }
+}
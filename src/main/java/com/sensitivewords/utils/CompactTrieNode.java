@@ -1,57 +1,173 @@
 package com.sensitivewords.utils;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Objects;
 
+// Trie树节点，按子节点个数自适应选择存储方式：
+// 叶子节点不分配数组；只有一个子节点时直接保存在字段中（中文词典中绝大多数节点属于这种）；
+// 子节点较少时为按字符排序的小数组，二分查找；子节点很多且字符分布集中时（如根节点）
+// 另建以字符偏移为下标的稠密数组，一次下标访问即可找到子节点
 public class CompactTrieNode {
-    // 使用数组存储常见字符的子节点
-    private final CompactTrieNode[] commonChildren = new CompactTrieNode[256];
-    // 使用HashMap存储非常见字符的子节点
-    private Map<Character, CompactTrieNode> rareChildren;
-    private CompactTrieNode fail;
+    // 子节点超过该个数时考虑改用稠密数组
+    static final int DENSE_MIN_CHILDREN = 32;
+    // 稠密数组的字符跨度不超过子节点个数的该倍数
+    static final int DENSE_MAX_SPREAD = 4;
+
+    // 只有一个子节点时的子边字符和子节点
+    private char onlyChar;
+    private CompactTrieNode onlyChild;
+    // 两个及以上子节点时：按字符排序的子边字符，与children一一对应（稠密时children以 c - denseBase 为下标）
+    private char[] childChars;
+    private CompactTrieNode[] children;
+    private char denseBase;
+    private boolean dense;
+    private int childCount;
     private boolean isEndOfWord;
     // 使用索引代替完整敏感词
     private int wordId = -1;
+    // 在该节点结束的词的分类掩码（见WordCategory）
+    private int categories;
 
     public CompactTrieNode getChild(char c) {
-        if (c < 256) {
-            return commonChildren[c];
-        } else if (rareChildren != null) {
-            return rareChildren.get(c);
+        if (childCount <= 1) {
+            return childCount == 1 && onlyChar == c ? onlyChild : null;
+        }
+        if (dense) {
+            int index = c - denseBase;
+            return index >= 0 && index < children.length ? children[index] : null;
         }
-        return null;
+        int index = Arrays.binarySearch(childChars, 0, childCount, c);
+        return index >= 0 ? children[index] : null;
     }
 
+    // 添加或替换子节点
     public void addChild(char c, CompactTrieNode node) {
-        if (c < 256) {
-            commonChildren[c] = node;
+        if (childCount == 0) {
+            onlyChar = c;
+            onlyChild = node;
+            childCount = 1;
+            return;
+        }
+        if (childCount == 1) {
+            if (onlyChar == c) {
+                onlyChild = node;
+                return;
+            }
+            // 第二个子节点：改为排序数组
+            childChars = new char[4];
+            children = new CompactTrieNode[4];
+            childChars[0] = onlyChar;
+            children[0] = onlyChild;
+            onlyChild = null;
+        }
+        int index = Arrays.binarySearch(childChars, 0, childCount, c);
+        if (index >= 0) {
+            children[dense ? c - denseBase : index] = node;
+            return;
+        }
+        insertChar(-index - 1, c);
+        if (dense) {
+            addDense(c, node);
         } else {
-            if (rareChildren == null) {
-                rareChildren = new HashMap<>();
+            insertSorted(-index - 1, node);
+            if (childCount > DENSE_MIN_CHILDREN && spread() <= childCount * DENSE_MAX_SPREAD) {
+                toDense();
             }
-            rareChildren.put(c, node);
         }
     }
 
-    // 获取常见字符子节点
-    public CompactTrieNode[] getCommonChildren() {
-        return commonChildren;
+    private void insertChar(int index, char c) {
+        if (childCount == childChars.length) {
+            childChars = Arrays.copyOf(childChars, childCount * 2);
+        }
+        System.arraycopy(childChars, index, childChars, index + 1, childCount - index);
+        childChars[index] = c;
+        childCount++;
     }
 
-    // 获取非常见字符子节点
-    public Map<Character, CompactTrieNode> getRareChildren() {
-        return rareChildren;
+    private void insertSorted(int index, CompactTrieNode node) {
+        if (childCount > children.length) {
+            children = Arrays.copyOf(children, children.length * 2);
+        }
+        System.arraycopy(children, index, children, index + 1, childCount - 1 - index);
+        children[index] = node;
     }
 
-    // 设置失败指针
-    public void setFail(CompactTrieNode fail) {
-        this.fail = fail;
+    // 稠密数组覆盖 [childChars[0], childChars[childCount - 1]]，新字符超出范围时扩展；
+    // 扩展后过于稀疏则退回排序数组
+    private void addDense(char c, CompactTrieNode node) {
+        if (spread() > childCount * DENSE_MAX_SPREAD) {
+            CompactTrieNode[] sorted = new CompactTrieNode[childChars.length];
+            for (int i = 0; i < childCount; i++) {
+                sorted[i] = childChars[i] == c ? node : children[childChars[i] - denseBase];
+            }
+            children = sorted;
+            dense = false;
+            return;
+        }
+        char base = childChars[0];
+        if (base != denseBase || spread() > children.length) {
+            CompactTrieNode[] expanded = new CompactTrieNode[spread()];
+            System.arraycopy(children, 0, expanded, denseBase - base, children.length);
+            children = expanded;
+            denseBase = base;
+        }
+        children[c - denseBase] = node;
+    }
+
+    private void toDense() {
+        CompactTrieNode[] expanded = new CompactTrieNode[spread()];
+        char base = childChars[0];
+        for (int i = 0; i < childCount; i++) {
+            expanded[childChars[i] - base] = children[i];
+        }
+        children = expanded;
+        denseBase = base;
+        dense = true;
+    }
+
+    private int spread() {
+        return childChars[childCount - 1] - childChars[0] + 1;
     }
 
-    // 获取失败指针
-    public CompactTrieNode getFail() {
-        return fail;
+    // 子节点个数
+    public int getChildCount() {
+        return childCount;
+    }
+
+    // 第i条子边的字符，按字符升序
+    public char getChildChar(int i) {
+        return childCount == 1 ? onlyChar : childChars[i];
+    }
+
+    // 第i条子边指向的子节点
+    public CompactTrieNode getChildAt(int i) {
+        if (childCount == 1) {
+            return onlyChild;
+        }
+        return dense ? children[childChars[i] - denseBase] : children[i];
+    }
+
+    // 估算本节点及其子边数组占用的堆内存（64位JVM、开启压缩指针、8字节对齐），不含子节点本身
+    long shallowSize() {
+        // 对象头12字节 + 字段：3个引用、3个int、2个char、2个boolean
+        long size = align(12 + 3 * 4 + 3 * 4 + 2 * 2 + 2);
+        if (childChars != null) {
+            size += align(16 + 2L * childChars.length) + align(16 + 4L * children.length);
+        }
+        return size;
+    }
+
+    // 当前存储方式：0 叶子，1 单子节点，2 排序数组，3 稠密数组
+    int kind() {
+        if (childCount <= 1) {
+            return childCount;
+        }
+        return dense ? 3 : 2;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
     }
 
     // 设置是否为单词结尾
@@ -74,6 +190,15 @@ public class CompactTrieNode {
         return wordId;
     }
 
+    // 合并分类，同一个词可能出现在多个分类词库中
+    public void addCategories(int categories) {
+        this.categories |= categories;
+    }
+
+    public int getCategories() {
+        return categories;
+    }
+
     // 手动实现 hashCode() 方法
     @Override
     public int hashCode() {
@@ -88,4 +213,4 @@ public class CompactTrieNode {
         CompactTrieNode that = (CompactTrieNode) obj;
         return wordId == that.wordId && isEndOfWord == that.isEndOfWord;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,613 @@
+package com.sensitivewords.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.*;
+
+// 冻结后的AC自动机：把Trie树和失败指针编译为以int下标访问的状态转移表
+// 状态按BFS顺序编号，浅层状态（含根节点）存放完整的稠密转移行，已经解析过失败指针，
+// 一次数组访问即可得到下一状态；稠密表放不下的深层状态使用按字符类排序的稀疏行，
+// 未命中时沿失败指针回退，直到落入稠密状态
+// 所有表均通过IntTable访问，既可以是堆内数组，也可以是映射文件（见AutomatonFile）或直接内存（见OffHeapStorage）
+// 字符归一化（见CharNormalizer）编译进字符类映射：等价字符共用一个字符类，
+// 可忽略字符映射到IGNORED_CLASS，在该类上的转移停留在原状态
+public final class CompiledAutomaton {
+    private static final Logger logger = LoggerFactory.getLogger(CompiledAutomaton.class);
+
+    public static final int ROOT = 0;
+    // 0号字符类表示词典中未出现的字符，1号表示可忽略字符
+    public static final int UNMAPPED_CLASS = 0;
+    public static final int IGNORED_CLASS = 1;
+    // 稠密转移表默认容量（int个数），超过后深层状态改用稀疏行
+    public static final int DEFAULT_DENSE_BUDGET = 1 << 22;
+    // 编译时每个并行任务至少处理的状态数，层内状态更少时在当前线程顺序处理
+    private static final int PARALLEL_GRAIN = 4096;
+    // 状态数不超过该值的小Trie（如增量层，每次编辑都要编译）只为出现的字符及其等价写法建立字符类，
+    // 不按65536个字符统计频率、逐个归一化，也不输出INFO日志
+    static final int SMALL_TRIE_STATES = 4096;
+    // 按字跳过时最多逐个比较的ASCII候选首字符数，再多时每字的比较次数已接近逐字符查位图
+    private static final int SWAR_ASCII_LIMIT = 4;
+    private static final long BYTE_ONES = 0x0101010101010101L;
+    private static final long BYTE_HIGHS = 0x8080808080808080L;
+    private static final long LANE_ONES = 0x0001000100010001L;
+    private static final long LANE_HIGHS = 0x8000800080008000L;
+    // char大于0x7F时对应位不为0
+    private static final long LANE_NON_ASCII = 0xFF80FF80FF80FF80L;
+    private static final VarHandle LONG_LE =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    // 按默认容量编译的小Trie只为前若干个状态（根节点和浅层）建立稠密行，其余用稀疏行，
+    // 避免每次编辑分配 状态数×字符类 的表；显式指定容量时仍按指定值
+    private static final int SMALL_DENSE_STATES = 64;
+
+    // 字符 -> 字符类，两级表，各实例共享内容相同的页
+    final CharClassTable charClass;
+    final int classCount;
+    final int stateCount;
+    // [0, denseStates) 的状态拥有稠密转移行
+    final int denseStates;
+    // 稠密转移表：delta[state * classCount + cls]
+    final IntTable delta;
+    // 深层状态的稀疏转移行（CSR布局，按 state - denseStates 索引）
+    final IntTable sparseOffsets;
+    final IntTable sparseClasses;
+    final IntTable sparseTargets;
+    // 失败指针
+    final IntTable fail;
+    // 恰好在该状态结束的敏感词ID，-1表示无
+    final IntTable wordIdOf;
+    // 字典后缀链接：沿失败链的下一个有输出的状态，-1表示无
+    final IntTable outputLink;
+    // 该状态上的第一个输出状态（自身或字典后缀链接），-1表示未命中
+    final IntTable firstOutput;
+    // 敏感词长度，下标即wordId
+    final IntTable wordLengths;
+    // 恰好在该状态结束的词的分类掩码，0表示无输出
+    final IntTable categories;
+    // 该状态全部输出（自身及字典后缀链接）的分类掩码之并
+    final IntTable outputCategories;
+    // 堆内存储时直接持有稠密转移表和输出表的数组，浅层状态的单步转移不经过IntTable
+    private final int[] deltaArray;
+    private final int[] firstOutputArray;
+    private final int[] outputCategoriesArray;
+    // 最长敏感词长度（不含可忽略字符）
+    private final int maxWordLength;
+    // 首字符位图：第c位表示字符c能从根节点转移出去，即可能是某个敏感词的第一个字符
+    private final long[] firstChars;
+    // 候选首字符中的ASCII字符，每个广播到8个字节（asciiBytes）或4个char（asciiLanes）的每一位上，
+    // 供按字（8字节/4个char）跳过时做SWAR比较；超过SWAR_ASCII_LIMIT个时为null，逐字符查位图
+    private final long[] asciiBytes;
+    private final long[] asciiLanes;
+
+    CompiledAutomaton(CharClassTable charClass, int classCount, int stateCount, int denseStates, IntTable delta,
+                      IntTable sparseOffsets, IntTable sparseClasses, IntTable sparseTargets, IntTable fail,
+                      IntTable wordIdOf, IntTable outputLink, IntTable firstOutput, IntTable wordLengths,
+                      IntTable categories, IntTable outputCategories) {
+        this(charClass, classCount, stateCount, denseStates, delta, sparseOffsets, sparseClasses, sparseTargets,
+                fail, wordIdOf, outputLink, firstOutput, wordLengths, categories, outputCategories, null);
+    }
+
+    // firstChars为null时由字符类表和根节点的转移行算出
+    private CompiledAutomaton(CharClassTable charClass, int classCount, int stateCount, int denseStates,
+                              IntTable delta, IntTable sparseOffsets, IntTable sparseClasses, IntTable sparseTargets,
+                              IntTable fail, IntTable wordIdOf, IntTable outputLink, IntTable firstOutput,
+                              IntTable wordLengths, IntTable categories, IntTable outputCategories,
+                              long[] firstChars) {
+        this.charClass = charClass;
+        this.classCount = classCount;
+        this.stateCount = stateCount;
+        this.denseStates = denseStates;
+        this.delta = delta;
+        this.sparseOffsets = sparseOffsets;
+        this.sparseClasses = sparseClasses;
+        this.sparseTargets = sparseTargets;
+        this.fail = fail;
+        this.wordIdOf = wordIdOf;
+        this.outputLink = outputLink;
+        this.firstOutput = firstOutput;
+        this.wordLengths = wordLengths;
+        this.categories = categories;
+        this.outputCategories = outputCategories;
+        this.deltaArray = delta.array();
+        this.firstOutputArray = firstOutput.array();
+        this.outputCategoriesArray = outputCategories.array();
+        int maxLength = 0;
+        for (int i = 0, n = wordLengths.length(); i < n; i++) {
+            maxLength = Math.max(maxLength, wordLengths.get(i));
+        }
+        this.maxWordLength = maxLength;
+        this.firstChars = firstChars != null ? firstChars : firstCharsOf(charClass, delta, classCount);
+        int asciiCount = this.firstChars.length == 0 ? 0
+                : Long.bitCount(this.firstChars[0]) + Long.bitCount(this.firstChars[1]);
+        if (asciiCount <= SWAR_ASCII_LIMIT) {
+            this.asciiBytes = new long[asciiCount];
+            this.asciiLanes = new long[asciiCount];
+            for (int c = 0, n = 0; n < asciiCount; c++) {
+                if ((this.firstChars[c >>> 6] & (1L << c)) != 0) {
+                    asciiBytes[n] = BYTE_ONES * c;
+                    asciiLanes[n++] = LANE_ONES * c;
+                }
+            }
+        } else {
+            this.asciiBytes = null;
+            this.asciiLanes = null;
+        }
+    }
+
+    public static CompiledAutomaton compile(CompactTrieNode root) {
+        return compile(root, CharNormalizer.NONE, DEFAULT_DENSE_BUDGET);
+    }
+
+    public static CompiledAutomaton compile(CompactTrieNode root, int denseBudget) {
+        return compile(root, CharNormalizer.NONE, denseBudget);
+    }
+
+    // Trie树中的字符须已经过normalizer归一化
+    public static CompiledAutomaton compile(CompactTrieNode root, CharNormalizer normalizer) {
+        return compile(root, normalizer, DEFAULT_DENSE_BUDGET);
+    }
+
+    // 编译Trie树，denseBudget为稠密转移表允许占用的int个数
+    // 各步骤的工作量都与状态数（即全部词长之和）成正比；同一BFS层内的状态互不依赖，按层在BatchExecutor上并行
+    public static CompiledAutomaton compile(CompactTrieNode root, CharNormalizer normalizer, int denseBudget) {
+        return compile(root, normalizer, denseBudget, SMALL_TRIE_STATES);
+    }
+
+    // 状态数不超过smallTrieStates时按小Trie编译，结果与完整编译相同
+    static CompiledAutomaton compile(CompactTrieNode root, CharNormalizer normalizer, int denseBudget,
+                                     int smallTrieStates) {
+        long startTime = System.nanoTime();
+        BatchExecutor executor = BatchExecutor.shared();
+
+        // 1. 按层BFS编号：同一节点的子节点编号连续，为 [childBase[s], childBase[s + 1])
+        //    直接按节点记录的子边字符遍历，labelOf为进入该状态的边上的字符
+        CompactTrieNode[] nodes = new CompactTrieNode[64];
+        char[] labelOf = new char[64];
+        int[] childBase = new int[64];
+        int[] levelStart = new int[16];
+        nodes[ROOT] = root;
+        int stateCount = 1;
+        int depthCount = 0;
+        for (int levelFrom = 0, levelTo = 1; levelFrom < levelTo; levelFrom = levelTo, levelTo = stateCount) {
+            if (depthCount + 1 == levelStart.length) {
+                levelStart = Arrays.copyOf(levelStart, levelStart.length * 2);
+            }
+            levelStart[depthCount++] = levelFrom;
+            for (int s = levelFrom; s < levelTo; s++) {
+                CompactTrieNode node = nodes[s];
+                childBase[s] = stateCount;
+                int children = node.getChildCount();
+                if (stateCount + children + 1 > nodes.length) {
+                    int capacity = Math.max(nodes.length * 2, stateCount + children + 1);
+                    nodes = Arrays.copyOf(nodes, capacity);
+                    labelOf = Arrays.copyOf(labelOf, capacity);
+                    childBase = Arrays.copyOf(childBase, capacity);
+                }
+                for (int i = 0; i < children; i++) {
+                    nodes[stateCount] = node.getChildAt(i);
+                    labelOf[stateCount] = node.getChildChar(i);
+                    stateCount++;
+                }
+            }
+        }
+        levelStart[depthCount] = stateCount;
+        childBase[stateCount] = stateCount;
+        final CompactTrieNode[] states = nodes;
+        final int[] childFrom = childBase;
+
+        // 2. 字符类：按出现频率编号，高频字符获得较小的类号，频率相同时按字符排序
+        boolean small = stateCount <= smallTrieStates;
+        long[] byFrequency = small ? rankSmall(labelOf, stateCount) : rankByFrequency(labelOf, stateCount);
+        int classCount = IGNORED_CLASS + 1 + byFrequency.length; // 0、1保留给未映射字符和可忽略字符
+        // 归一化：可忽略字符归入IGNORED_CLASS，其余字符沿用其规范字符的字符类
+        final CharClassTable charClass;
+        char[] mappedChars = null;
+        int[] mappedClasses = null;
+        int mapped = 0;
+        if (small) {
+            // 只填入词中出现的字符及折叠到它们的写法，其余字符沿用共享的可忽略字符表
+            char[] distinct = new char[byFrequency.length];
+            for (int i = 0; i < distinct.length; i++) {
+                distinct[i] = (char) (byFrequency[i] & 0xFFFF);
+            }
+            char[] sorted = distinct.clone();
+            Arrays.sort(sorted);
+            mappedChars = new char[Math.max(1, distinct.length)];
+            mappedClasses = new int[mappedChars.length];
+            for (int i = 0; i < distinct.length; i++) {
+                char c = distinct[i];
+                if (!normalizer.isIgnorable(c)) {
+                    mappedChars[mapped] = c;
+                    mappedClasses[mapped++] = IGNORED_CLASS + 1 + i;
+                }
+            }
+            for (int i = 0, labelCount = mapped; i < labelCount; i++) {
+                for (char variant : normalizer.variantsOf(mappedChars[i])) {
+                    if (Arrays.binarySearch(sorted, variant) < 0) {
+                        if (mapped == mappedChars.length) {
+                            mappedChars = Arrays.copyOf(mappedChars, mapped * 2);
+                            mappedClasses = Arrays.copyOf(mappedClasses, mapped * 2);
+                        }
+                        mappedChars[mapped] = variant;
+                        mappedClasses[mapped++] = mappedClasses[i];
+                    }
+                }
+            }
+            charClass = normalizer.ignorableClasses().with(mappedChars, mappedClasses, mapped);
+        } else {
+            int[] classes = new int[Character.MAX_VALUE + 1];
+            for (int i = 0; i < byFrequency.length; i++) {
+                classes[(int) (byFrequency[i] & 0xFFFF)] = IGNORED_CLASS + 1 + i;
+            }
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                if (normalizer.isIgnorable((char) c)) {
+                    classes[c] = IGNORED_CLASS;
+                } else if (classes[c] == UNMAPPED_CLASS) {
+                    classes[c] = classes[normalizer.fold((char) c)];
+                }
+            }
+            charClass = CharClassTable.of(classes);
+        }
+
+        // 3. 每个状态的转移（按字符类排序）和输出；子节点编号连续，第t个状态的入边存放在下标t - 1处
+        int[] edgeClasses = new int[stateCount - 1];
+        int[] edgeTargets = new int[stateCount - 1];
+        int[] wordIdOf = new int[stateCount];
+        int[] categories = new int[stateCount];
+        final char[] labels = labelOf;
+        executor.forRange(0, stateCount, PARALLEL_GRAIN, s -> {
+            CompactTrieNode node = states[s];
+            wordIdOf[s] = node.isEndOfWord() ? node.getWordId() : -1;
+            if (node.isEndOfWord()) {
+                // 未标注分类的词（直接构建Trie树的调用方）归入GENERAL
+                categories[s] = node.getCategories() != 0 ? node.getCategories() : WordCategory.GENERAL.mask();
+            }
+            int from = childFrom[s];
+            int to = childFrom[s + 1];
+            long[] packed = new long[to - from];
+            for (int t = from; t < to; t++) {
+                packed[t - from] = ((long) charClass.classOf(labels[t]) << 32) | t;
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < packed.length; i++) {
+                edgeClasses[from - 1 + i] = (int) (packed[i] >>> 32);
+                edgeTargets[from - 1 + i] = (int) packed[i];
+            }
+        });
+        int maxWordId = -1;
+        for (int s = 0; s < stateCount; s++) {
+            maxWordId = Math.max(maxWordId, wordIdOf[s]);
+        }
+        int[] wordLengths = new int[maxWordId + 1];
+        for (int depth = 0; depth < depthCount; depth++) {
+            for (int s = levelStart[depth]; s < levelStart[depth + 1]; s++) {
+                if (wordIdOf[s] >= 0) {
+                    wordLengths[wordIdOf[s]] = depth;
+                }
+            }
+        }
+
+        // 4. 划分稠密与稀疏状态：稀疏状态的边在edgeClasses中本就连续，直接截取
+        long budget = small && denseBudget == DEFAULT_DENSE_BUDGET
+                ? (long) SMALL_DENSE_STATES * classCount : denseBudget;
+        int denseStates = (int) Math.max(1, Math.min(stateCount, budget / classCount));
+        int[] delta = new int[denseStates * classCount];
+        int sparseCount = stateCount - denseStates;
+        int edgeFrom = childBase[denseStates] - 1;
+        int[] sparseOffsets = new int[sparseCount + 1];
+        for (int r = 0; r <= sparseCount; r++) {
+            sparseOffsets[r] = childBase[denseStates + r] - 1 - edgeFrom;
+        }
+        int[] sparseClasses = Arrays.copyOfRange(edgeClasses, edgeFrom, stateCount - 1);
+        int[] sparseTargets = Arrays.copyOfRange(edgeTargets, edgeFrom, stateCount - 1);
+
+        // 表直接包装构建中的数组，下面计算失败指针时即可复用nextState
+        int[] fail = new int[stateCount];
+        int[] outputLink = new int[stateCount];
+        int[] firstOutput = new int[stateCount];
+        int[] outputCategories = new int[stateCount];
+        // 构建中的实例不做跳过扫描，首字符位图留空
+        CompiledAutomaton building = new CompiledAutomaton(charClass, classCount, stateCount,
+                denseStates, IntTable.wrap(delta), IntTable.wrap(sparseOffsets), IntTable.wrap(sparseClasses),
+                IntTable.wrap(sparseTargets), IntTable.wrap(fail), IntTable.wrap(wordIdOf),
+                IntTable.wrap(outputLink), IntTable.wrap(firstOutput), IntTable.wrap(wordLengths),
+                IntTable.wrap(categories), IntTable.wrap(outputCategories), new long[0]);
+
+        // 5. 逐层计算失败指针和稠密行：失败状态深度更小，其转移行和输出在处理上一层时已经就绪，
+        //    同一层内各状态只写自己的行和自己子节点的失败指针，可以并行
+        outputLink[ROOT] = -1;
+        final int classes = classCount;
+        for (int depth = 0; depth < depthCount; depth++) {
+            executor.forRange(levelStart[depth], levelStart[depth + 1], PARALLEL_GRAIN, s -> {
+                if (s != ROOT) {
+                    int f = fail[s];
+                    outputLink[s] = wordIdOf[f] >= 0 ? f : outputLink[f];
+                }
+                firstOutput[s] = wordIdOf[s] >= 0 ? s : outputLink[s];
+                outputCategories[s] = categories[s] | (outputLink[s] >= 0 ? outputCategories[outputLink[s]] : 0);
+                int from = childFrom[s] - 1;
+                int to = childFrom[s + 1] - 1;
+                if (s < denseStates) {
+                    int row = s * classes;
+                    if (s != ROOT) {
+                        System.arraycopy(delta, fail[s] * classes, delta, row, classes);
+                    }
+                    delta[row + IGNORED_CLASS] = s;
+                    for (int k = from; k < to; k++) {
+                        delta[row + edgeClasses[k]] = edgeTargets[k];
+                    }
+                }
+                for (int k = from; k < to; k++) {
+                    fail[edgeTargets[k]] = s == ROOT ? ROOT : building.nextState(fail[s], edgeClasses[k]);
+                }
+            });
+        }
+
+        // 转移表填好后重新构造，首字符位图依赖根节点的转移行；小Trie只需检查已映射的字符
+        long[] firstChars = null;
+        if (small) {
+            firstChars = new long[(Character.MAX_VALUE + 1) >>> 6];
+            for (int i = 0; i < mapped; i++) {
+                char c = mappedChars[i];
+                if (delta[ROOT + mappedClasses[i]] != ROOT) {
+                    firstChars[c >>> 6] |= 1L << c;
+                }
+            }
+        }
+        CompiledAutomaton automaton = new CompiledAutomaton(building.charClass, classCount, stateCount, denseStates,
+                building.delta, building.sparseOffsets, building.sparseClasses, building.sparseTargets, building.fail,
+                building.wordIdOf, building.outputLink, building.firstOutput, building.wordLengths,
+                building.categories, building.outputCategories, firstChars);
+        if (small) {
+            logger.debug("小AC自动机编译完成: 状态数 {}, 字符类 {}, 耗时 {}us",
+                    stateCount, classCount, (System.nanoTime() - startTime) / 1_000);
+        } else {
+            logger.info("AC自动机编译完成: 状态数 {}, 字符类 {}, 稠密状态 {}, 耗时 {}ms",
+                    stateCount, classCount, denseStates, (System.nanoTime() - startTime) / 1_000_000);
+        }
+        return automaton;
+    }
+
+    // 复制到堆外存储，扫描结果与原自动机相同；字符类表和首字符位图很小，仍在堆内
+    CompiledAutomaton toOffHeap(OffHeapStorage storage) {
+        return new CompiledAutomaton(charClass, classCount, stateCount, denseStates, storage.allocate(delta),
+                storage.allocate(sparseOffsets), storage.allocate(sparseClasses), storage.allocate(sparseTargets),
+                storage.allocate(fail), storage.allocate(wordIdOf), storage.allocate(outputLink),
+                storage.allocate(firstOutput), storage.allocate(wordLengths), storage.allocate(categories),
+                storage.allocate(outputCategories), firstChars);
+    }
+
+    // 出现频率降序、字符升序排列的各不同字符，每项为 (-频率 << 16) | 字符
+    private static long[] rankByFrequency(char[] labelOf, int stateCount) {
+        int[] frequency = new int[Character.MAX_VALUE + 1];
+        for (int s = 1; s < stateCount; s++) {
+            frequency[labelOf[s]]++;
+        }
+        long[] byFrequency = new long[Character.MAX_VALUE + 1];
+        int distinctChars = 0;
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (frequency[c] > 0) {
+                byFrequency[distinctChars++] = ((long) -frequency[c] << 16) | c;
+            }
+        }
+        Arrays.sort(byFrequency, 0, distinctChars);
+        return Arrays.copyOf(byFrequency, distinctChars);
+    }
+
+    // 同上，排序边上的字符后计数，不分配按字符下标的表
+    private static long[] rankSmall(char[] labelOf, int stateCount) {
+        char[] labels = Arrays.copyOfRange(labelOf, 1, stateCount);
+        Arrays.sort(labels);
+        long[] byFrequency = new long[labels.length];
+        int distinctChars = 0;
+        for (int i = 0; i < labels.length; ) {
+            int j = i + 1;
+            while (j < labels.length && labels[j] == labels[i]) {
+                j++;
+            }
+            byFrequency[distinctChars++] = ((long) -(j - i) << 16) | labels[i];
+            i = j;
+        }
+        Arrays.sort(byFrequency, 0, distinctChars);
+        return Arrays.copyOf(byFrequency, distinctChars);
+    }
+
+    // 字符对应的字符类
+    public int classOf(char c) {
+        return charClass.classOf(c);
+    }
+
+    // 从state读入字符c后的状态，可忽略字符不改变状态
+    public int next(int state, char c) {
+        return nextState(state, classOf(c));
+    }
+
+    // 从state读入字符类cls后的状态
+    public int nextState(int state, int cls) {
+        int[] table = deltaArray;
+        if (table != null && state < denseStates) {
+            return table[state * classCount + cls];
+        }
+        return nextSparse(state, cls);
+    }
+
+    private int nextSparse(int state, int cls) {
+        if (cls == UNMAPPED_CLASS) {
+            return ROOT;
+        }
+        if (cls == IGNORED_CLASS) {
+            return state;
+        }
+        while (state >= denseStates) {
+            int row = state - denseStates;
+            int index = sparseClasses.binarySearch(sparseOffsets.get(row), sparseOffsets.get(row + 1), cls);
+            if (index >= 0) {
+                return sparseTargets.get(index);
+            }
+            state = fail.get(state);
+        }
+        return delta.get(state * classCount + cls);
+    }
+
+    // 恰好在该状态结束的敏感词ID，-1表示无
+    public int wordIdAt(int state) {
+        return wordIdOf.get(state);
+    }
+
+    // 沿失败链的下一个有输出的状态，-1表示无
+    public int outputLinkAt(int state) {
+        return outputLink.get(state);
+    }
+
+    // 该状态上的第一个输出状态（自身或字典后缀链接），-1表示无；沿outputLinkAt继续遍历其余输出
+    public int firstOutput(int state) {
+        return firstOutput.get(state);
+    }
+
+    public int wordLength(int wordId) {
+        return wordLengths.get(wordId);
+    }
+
+    public int getMaxWordLength() {
+        return maxWordLength;
+    }
+
+    // 返回 [from, to) 中第一个可能作为敏感词首字符的位置，没有时返回to
+    // 自动机处于根节点时，非候选字符的转移必然回到根节点，调用方可以直接跳过这一段：
+    // 每个字符只需查一次位图，没有状态之间的依赖，比逐字符走转移表快得多
+    // ASCII候选不多时按4个char一组打包成long做SWAR判断：全是ASCII且不含候选的一组整体跳过，
+    // 否则逐个查位图；String的底层数组不可访问，只能逐个charAt后打包
+    public int skipToCandidate(CharSequence text, int from, int to) {
+        final long[] bits = firstChars;
+        final long[] lanes = asciiLanes;
+        if (lanes != null) {
+            while (to - from >= 4) {
+                long word = text.charAt(from) | (long) text.charAt(from + 1) << 16
+                        | (long) text.charAt(from + 2) << 32 | (long) text.charAt(from + 3) << 48;
+                if ((word & LANE_NON_ASCII) == 0 && !containsLane(word, lanes)) {
+                    from += 4;
+                    continue;
+                }
+                for (int k = 0; k < 4; k++, from++, word >>>= 16) {
+                    int c = (int) word & 0xFFFF;
+                    if ((bits[c >>> 6] & (1L << c)) != 0) {
+                        return from;
+                    }
+                }
+            }
+        }
+        while (from < to) {
+            char c = text.charAt(from);
+            if ((bits[c >>> 6] & (1L << c)) != 0) {
+                return from;
+            }
+            from++;
+        }
+        return to;
+    }
+
+    // 同上，用于UTF-8字节扫描（见Utf8Automaton）：只跳过不是候选首字符的ASCII字节，
+    // 遇到多字节序列的首字节即停下，由调用方解码后再判断
+    // ASCII候选不多时一次读8个字节：没有高位字节也没有候选字节时整体跳过，
+    // 没有ASCII候选时直接由最低的高位字节定位
+    public int skipToCandidate(byte[] bytes, int from, int to) {
+        final long[] bits = firstChars;
+        final long[] patterns = asciiBytes;
+        if (patterns != null) {
+            while (to - from >= 8) {
+                long word = (long) LONG_LE.get(bytes, from);
+                long nonAscii = word & BYTE_HIGHS;
+                if (patterns.length == 0) {
+                    if (nonAscii != 0) {
+                        return from + (Long.numberOfTrailingZeros(nonAscii) >>> 3);
+                    }
+                    from += 8;
+                    continue;
+                }
+                if (nonAscii == 0 && !containsByte(word, patterns)) {
+                    from += 8;
+                    continue;
+                }
+                break;
+            }
+        }
+        while (from < to) {
+            int b = bytes[from];
+            if (b < 0 || (bits[b >>> 6] & (1L << b)) != 0) {
+                return from;
+            }
+            from++;
+        }
+        return to;
+    }
+
+    // 某个字节等于patterns中的某个广播值；借位可能在真正相等的字节之上误报，误报时由调用方逐个确认
+    private static boolean containsByte(long word, long[] patterns) {
+        for (long pattern : patterns) {
+            long x = word ^ pattern;
+            if (((x - BYTE_ONES) & ~x & BYTE_HIGHS) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 同上，按16位一个char比较
+    private static boolean containsLane(long word, long[] patterns) {
+        for (long pattern : patterns) {
+            long x = word ^ pattern;
+            if (((x - LANE_ONES) & ~x & LANE_HIGHS) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 根节点总是稠密状态，其转移行即 delta[0, classCount)
+    private static long[] firstCharsOf(CharClassTable charClass, IntTable delta, int classCount) {
+        long[] bits = new long[(Character.MAX_VALUE + 1) >>> 6];
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            int cls = charClass.classOf((char) c);
+            if (cls != UNMAPPED_CLASS && cls != IGNORED_CLASS && cls < classCount && delta.get(ROOT + cls) != ROOT) {
+                bits[c >>> 6] |= 1L << c;
+            }
+        }
+        return bits;
+    }
+
+    // 到达该状态时是否已命中任一敏感词
+    public boolean isTerminal(int state) {
+        int[] outputs = firstOutputArray;
+        return (outputs != null ? outputs[state] : firstOutput.get(state)) >= 0;
+    }
+
+    // 恰好在该状态结束的词的分类掩码
+    public int categoriesAt(int state) {
+        return categories.get(state);
+    }
+
+    // 到达该状态时命中的全部分类，与策略掩码按位与不为0即命中了策略关心的分类
+    public int outputCategories(int state) {
+        int[] masks = outputCategoriesArray;
+        return masks != null ? masks[state] : outputCategories.get(state);
+    }
+
+    public int failOf(int state) {
+        return fail.get(state);
+    }
+
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int getDenseStates() {
+        return denseStates;
+    }
+}
@@ -0,0 +1,107 @@
+package com.sensitivewords.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+// 只读int表：编译后的状态转移表可以存放在堆内数组中，也可以直接映射到文件或堆外内存上，
+// 扫描代码只依赖这一抽象；同一进程内通常只使用一种实现，调用点保持单态，可被JIT内联
+public abstract class IntTable {
+
+    public abstract int get(int index);
+
+    public abstract int length();
+
+    // 堆内实现返回底层数组，其余实现返回null
+    int[] array() {
+        return null;
+    }
+
+    // 以小端序写出全部元素
+    void writeTo(ByteBuffer out) {
+        for (int i = 0, n = length(); i < n; i++) {
+            out.putInt(get(i));
+        }
+    }
+
+    // 在 [from, to) 内二分查找key，未找到返回负数
+    public int binarySearch(int from, int to, int key) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = get(mid);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    public static IntTable wrap(int[] array) {
+        return new HeapIntTable(array);
+    }
+
+    public static IntTable wrap(IntBuffer buffer) {
+        return new BufferIntTable(buffer);
+    }
+
+    // 把ByteBuffer的 [offset, offset + count * 4) 视为小端序int表，不复制数据
+    public static IntTable view(ByteBuffer buffer, int offset, int count) {
+        IntBuffer ints = buffer.slice(offset, count * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asIntBuffer();
+        return new BufferIntTable(ints);
+    }
+
+    private static final class HeapIntTable extends IntTable {
+        private final int[] array;
+
+        HeapIntTable(int[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public int get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public int length() {
+            return array.length;
+        }
+
+        @Override
+        int[] array() {
+            return array;
+        }
+
+        @Override
+        void writeTo(ByteBuffer out) {
+            out.asIntBuffer().put(array);
+            out.position(out.position() + array.length * Integer.BYTES);
+        }
+    }
+
+    private static final class BufferIntTable extends IntTable {
+        private final IntBuffer buffer;
+
+        BufferIntTable(IntBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int get(int index) {
+            return buffer.get(index);
+        }
+
+        @Override
+        public int length() {
+            return buffer.limit();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.sensitivewords.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// 对数分桶的延迟直方图：小于16ns的值各占一个桶，之后每个2的幂区间再均分为16个桶，
+// 分位数的相对误差不超过1/16；超过约18分钟（2^40ns）的值计入最后一个桶
+// 计数按线程分条存放，每条是单独的一段槽位，不同线程记录时不争用同一个缓存行；
+// 记录只有两次原子加（必要时再更新最大值），不分配对象，读取时把各条累加
+// 各条在第一次有线程记录时才分配：ScanMetrics按操作×长度区间持有十几个直方图，多数很少或从不被记录，
+// 不预先为每个直方图分配全部分条（每条约4.7KB）
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    static final int BUCKETS = bucketOf(MAX_VALUE) + 1;
+    // 每条末尾的总耗时和最大值
+    private static final int SUM_SLOT = BUCKETS;
+    private static final int MAX_SLOT = BUCKETS + 1;
+    private static final int STRIDE = BUCKETS + 2;
+    private static final int STRIPES = Math.min(8, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    // 记录一次耗时（纳秒）
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        AtomicLongArray slots = stripes.get(stripe);
+        if (slots == null) {
+            slots = allocate(stripe);
+        }
+        slots.getAndIncrement(bucketOf(nanos));
+        slots.getAndAdd(SUM_SLOT, nanos);
+        if (nanos > slots.get(MAX_SLOT)) {
+            slots.accumulateAndGet(MAX_SLOT, nanos, Math::max);
+        }
+    }
+
+    // 同一条上并发分配时只保留先写入的一个
+    private AtomicLongArray allocate(int stripe) {
+        AtomicLongArray slots = new AtomicLongArray(STRIDE);
+        return stripes.compareAndSet(stripe, null, slots) ? slots : stripes.get(stripe);
+    }
+
+    // 已分配的条数
+    int allocatedStripes() {
+        int allocated = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            if (stripes.get(stripe) != null) {
+                allocated++;
+            }
+        }
+        return allocated;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        long v = Math.min(value, MAX_VALUE);
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((v >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // 桶内的最大值，分位数按桶上界报告
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    // 汇总各条的计数，计算分位数；与并发的记录之间不加锁，结果可能漏掉正在写入的少量样本
+    public Summary summarize() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            AtomicLongArray slots = stripes.get(stripe);
+            if (slots == null) {
+                continue;
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = slots.get(i);
+                counts[i] += c;
+                count += c;
+            }
+            sum += slots.get(SUM_SLOT);
+            max = Math.max(max, slots.get(MAX_SLOT));
+        }
+        return new Summary(count, count > 0 ? (double) sum / count : 0,
+                percentile(counts, count, 0.5, max),
+                percentile(counts, count, 0.99, max),
+                percentile(counts, count, 0.999, max),
+                max);
+    }
+
+    private static long percentile(long[] counts, long count, double quantile, long max) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    // 延迟汇总，单位纳秒
+    public static class Summary {
+        public final long count;
+        public final double meanNs;
+        public final long p50Ns;
+        public final long p99Ns;
+        public final long p999Ns;
+        public final long maxNs;
+
+        public Summary(long count, double meanNs, long p50Ns, long p99Ns, long p999Ns, long maxNs) {
+            this.count = count;
+            this.meanNs = meanNs;
+            this.p50Ns = p50Ns;
+            this.p99Ns = p99Ns;
+            this.p999Ns = p999Ns;
+            this.maxNs = maxNs;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.sensitivewords.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+// 读取随项目打包的分类词库
+// 各词库来源不同，编码不统一：有BOM时按BOM（UTF-8/UTF-16），否则能按UTF-8解码的按UTF-8，其余按GB18030（兼容GBK）；
+// 每行一个词，去掉首尾空白和部分词库行尾的逗号
+public final class LexiconLoader {
+    private static final Logger logger = LoggerFactory.getLogger(LexiconLoader.class);
+
+    private static final Charset GB18030 = Charset.forName("GB18030");
+
+    private LexiconLoader() {
+    }
+
+    // 按分类加载全部内置词库，找不到的词库跳过
+    public static Map<WordCategory, List<String>> loadBundled() throws IOException {
+        return loadBundled(EnumSet.allOf(WordCategory.class));
+    }
+
+    // 只加载指定分类的内置词库
+    public static Map<WordCategory, List<String>> loadBundled(Collection<WordCategory> categories) throws IOException {
+        Map<WordCategory, List<String>> lexicons = new EnumMap<>(WordCategory.class);
+        ClassLoader classLoader = LexiconLoader.class.getClassLoader();
+        for (WordCategory category : EnumSet.copyOf(categories)) {
+            List<String> words = new ArrayList<>();
+            for (String resource : category.getResources()) {
+                try (InputStream in = classLoader.getResourceAsStream(resource)) {
+                    if (in == null) {
+                        logger.warn("未找到{}词库: {}", category.getLabel(), resource);
+                        continue;
+                    }
+                    words.addAll(read(in));
+                }
+            }
+            lexicons.put(category, words);
+            logger.info("加载{}词库 {} 个词", category.getLabel(), words.size());
+        }
+        return lexicons;
+    }
+
+    public static List<String> read(InputStream in) throws IOException {
+        String content = decode(in.readAllBytes());
+        List<String> words = new ArrayList<>();
+        for (String line : content.split("\r?\n|\r")) {
+            String word = line.trim();
+            while (word.endsWith(",") || word.endsWith("，")) {
+                word = word.substring(0, word.length() - 1).trim();
+            }
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    static String decode(byte[] bytes) {
+        int length = bytes.length;
+        if (length >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF) {
+            return new String(bytes, 3, length - 3, StandardCharsets.UTF_8);
+        }
+        if (length >= 2 && (bytes[0] & 0xFF) == 0xFF && (bytes[1] & 0xFF) == 0xFE) {
+            return new String(bytes, 2, length - 2, StandardCharsets.UTF_16LE);
+        }
+        if (length >= 2 && (bytes[0] & 0xFF) == 0xFE && (bytes[1] & 0xFF) == 0xFF) {
+            return new String(bytes, 2, length - 2, StandardCharsets.UTF_16BE);
+        }
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            return new String(bytes, GB18030);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.sensitivewords.utils;
+
+// 替换区间：maskInto 系列方法写出的互不重叠、按起点排列的替换区间（end不含）
+// 可在同一线程内反复使用，避免每次替换都分配新的缓冲；非线程安全
+public final class MaskRanges {
+    final MatchBuffer buffer = new MatchBuffer();
+
+    public int size() {
+        return buffer.size();
+    }
+
+    public int start(int i) {
+        return buffer.start(i);
+    }
+
+    public int end(int i) {
+        return buffer.end(i);
+    }
+
+    void clear() {
+        buffer.clear();
+    }
+}
@@ -0,0 +1,247 @@
+package com.sensitivewords.utils;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+// 命中缓冲：收集扫描产生的命中，按匹配语义筛选，并把命中区间合并后一次性生成替换文本
+// 扫描器按结束位置递增的顺序报告命中，筛选和合并都依赖这一顺序，其他顺序须先调用sortByEnd；非线程安全
+// 排序和筛选使用缓冲自带的备用数组，结果写入备用数组后与当前数组交换，容量只增不减，反复使用时不再分配
+final class MatchBuffer implements MatchHandler {
+    private int[] starts;
+    private int[] ends;
+    private int[] wordIds;
+    private int size;
+    // 排序键和备用数组，首次排序或筛选时按当前容量分配
+    private long[] order;
+    private int[] spareStarts;
+    private int[] spareEnds;
+    private int[] spareWordIds;
+
+    MatchBuffer() {
+        this(16);
+    }
+
+    MatchBuffer(int capacity) {
+        starts = new int[capacity];
+        ends = new int[capacity];
+        wordIds = new int[capacity];
+    }
+
+    @Override
+    public void onMatch(int start, int end, int wordId) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            wordIds = Arrays.copyOf(wordIds, capacity);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        wordIds[size] = wordId;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // 当前数组的容量
+    int capacity() {
+        return starts.length;
+    }
+
+    int start(int i) {
+        return starts[i];
+    }
+
+    int end(int i) {
+        return ends[i];
+    }
+
+    int wordId(int i) {
+        return wordIds[i];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void forEach(MatchHandler handler) {
+        for (int i = 0; i < size; i++) {
+            handler.onMatch(starts[i], ends[i], wordIds[i]);
+        }
+    }
+
+    // 按结束位置重新排列命中，结束位置相同的保持报告顺序
+    void sortByEnd() {
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) {
+            sorted = ends[i - 1] <= ends[i];
+        }
+        if (sorted) {
+            return;
+        }
+        long[] order = ensureScratch();
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) ends[i] << 32) | i;
+        }
+        Arrays.sort(order, 0, size);
+        for (int i = 0; i < size; i++) {
+            int index = (int) order[i];
+            spareStarts[i] = starts[index];
+            spareEnds[i] = ends[index];
+            spareWordIds[i] = wordIds[index];
+        }
+        swap();
+    }
+
+    // 按匹配语义筛选，保留的命中按起点排列且互不重叠；STANDARD不做处理
+    // LEFTMOST_FIRST在同一起点取优先级最小（词表中最靠前）的词，优先级即wordId
+    void select(MatchKind kind) {
+        select(kind, 0, null);
+    }
+
+    // 同上，wordId不小于offset的词以 priorities[wordId - offset] 为优先级（增量层的词），其余词的优先级为wordId
+    void select(MatchKind kind, int offset, int[] priorities) {
+        if (kind == MatchKind.STANDARD || size == 0) {
+            return;
+        }
+        // 按 (起点, 报告顺序) 排序；报告顺序即结束位置递增，同一起点下越靠后越长
+        long[] order = ensureScratch();
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) starts[i] << 32) | i;
+        }
+        Arrays.sort(order, 0, size);
+
+        int count = 0;
+        int lastEnd = Integer.MIN_VALUE;
+        for (int g = 0; g < size; ) {
+            int start = (int) (order[g] >>> 32);
+            int groupEnd = g + 1;
+            while (groupEnd < size && (int) (order[groupEnd] >>> 32) == start) {
+                groupEnd++;
+            }
+            if (start >= lastEnd) {
+                int best = (int) order[g];
+                for (int k = g + 1; k < groupEnd; k++) {
+                    int candidate = (int) order[k];
+                    if (kind == MatchKind.LEFTMOST_LONGEST ? ends[candidate] > ends[best]
+                            : priorityOf(wordIds[candidate], offset, priorities) < priorityOf(wordIds[best], offset, priorities)) {
+                        best = candidate;
+                    }
+                }
+                spareStarts[count] = starts[best];
+                spareEnds[count] = ends[best];
+                spareWordIds[count] = wordIds[best];
+                count++;
+                lastEnd = ends[best];
+            }
+            g = groupEnd;
+        }
+
+        swap();
+        size = count;
+    }
+
+    private static int priorityOf(int wordId, int offset, int[] priorities) {
+        return priorities == null || wordId < offset ? wordId : priorities[wordId - offset];
+    }
+
+    // 备用数组与当前数组同样大小，返回排序键数组
+    private long[] ensureScratch() {
+        int capacity = starts.length;
+        if (order == null || order.length < capacity) {
+            order = new long[capacity];
+        }
+        // 交换之后备用数组可能是较小的旧数组
+        if (spareStarts == null || spareStarts.length < capacity) {
+            spareStarts = new int[capacity];
+            spareEnds = new int[capacity];
+            spareWordIds = new int[capacity];
+        }
+        return order;
+    }
+
+    // 备用数组中的结果成为当前数组，原数组留作下次的备用数组
+    private void swap() {
+        int[] t = starts;
+        starts = spareStarts;
+        spareStarts = t;
+        t = ends;
+        ends = spareEnds;
+        spareEnds = t;
+        t = wordIds;
+        wordIds = spareWordIds;
+        spareWordIds = t;
+    }
+
+    // 合并重叠或相邻的命中区间后整体替换：每段原文和每段掩码各做一次批量复制/填充
+    // 没有命中时直接返回原字符串
+    String mask(String text, char maskChar) {
+        if (mergeSpans() == 0) {
+            return text;
+        }
+        char[] out = new char[text.length()];
+        writeMasked(text, maskChar, out, 0);
+        return new String(out);
+    }
+
+    // 按已合并的区间把替换后的文本写入 out[offset, offset + text.length())
+    void writeMasked(CharSequence text, char maskChar, char[] out, int offset) {
+        int copied = 0;
+        for (int i = 0; i < size; i++) {
+            copy(text, copied, starts[i], out, offset);
+            Arrays.fill(out, offset + starts[i], offset + ends[i], maskChar);
+            copied = ends[i];
+        }
+        copy(text, copied, text.length(), out, offset);
+    }
+
+    // 按已合并的区间把替换后的文本写入out的当前位置
+    void writeMasked(CharSequence text, char maskChar, CharBuffer out) {
+        if (out.hasArray()) {
+            writeMasked(text, maskChar, out.array(), out.arrayOffset() + out.position());
+            out.position(out.position() + text.length());
+            return;
+        }
+        int copied = 0;
+        for (int i = 0; i < size; i++) {
+            out.append(text, copied, starts[i]);
+            for (int j = starts[i]; j < ends[i]; j++) {
+                out.put(maskChar);
+            }
+            copied = ends[i];
+        }
+        out.append(text, copied, text.length());
+    }
+
+    private static void copy(CharSequence text, int from, int to, char[] out, int offset) {
+        if (text instanceof String) {
+            ((String) text).getChars(from, to, out, offset + from);
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            out[offset + i] = text.charAt(i);
+        }
+    }
+
+    // 把命中原地合并为互不重叠、按起点排列的区间，返回区间数；合并后wordId不再有意义
+    // 命中的结束位置单调不减，新区间只可能与栈顶的若干区间重叠
+    int mergeSpans() {
+        int top = 0;
+        for (int i = 0; i < size; i++) {
+            int start = starts[i];
+            int end = ends[i];
+            while (top > 0 && ends[top - 1] >= start) {
+                top--;
+                start = Math.min(start, starts[top]);
+                end = Math.max(end, ends[top]);
+            }
+            starts[top] = start;
+            ends[top] = end;
+            top++;
+        }
+        size = top;
+        return top;
+    }
+}
@@ -0,0 +1,77 @@
+package com.sensitivewords.utils;
+
+// 命中收集器：以int数组保存每个命中的起点、终点（不含）和wordId，位置即原文中的字符下标，
+// 不为命中分配对象，数组按需扩容；词本身按需通过 getWord(wordId) 取得
+// clear()后可在同一线程内反复使用，如 ThreadLocal.withInitial(MatchCollector::new)；非线程安全
+// 只计数模式不保存命中，只累计命中个数
+public final class MatchCollector implements MatchHandler {
+    final MatchBuffer buffer;
+    private final boolean countOnly;
+    private int count;
+
+    public MatchCollector() {
+        this(16);
+    }
+
+    public MatchCollector(int capacity) {
+        this(new MatchBuffer(Math.max(1, capacity)), false);
+    }
+
+    private MatchCollector(MatchBuffer buffer, boolean countOnly) {
+        this.buffer = buffer;
+        this.countOnly = countOnly;
+    }
+
+    // 只计数的收集器
+    public static MatchCollector countOnly() {
+        return new MatchCollector(new MatchBuffer(1), true);
+    }
+
+    @Override
+    public void onMatch(int start, int end, int wordId) {
+        count++;
+        if (!countOnly) {
+            buffer.onMatch(start, end, wordId);
+        }
+    }
+
+    public boolean isCountOnly() {
+        return countOnly;
+    }
+
+    // 命中个数，只计数模式下同样有效
+    public int count() {
+        return count;
+    }
+
+    // 已保存的命中个数，只计数模式下为0
+    public int size() {
+        return buffer.size();
+    }
+
+    public int start(int i) {
+        return buffer.start(i);
+    }
+
+    public int end(int i) {
+        return buffer.end(i);
+    }
+
+    public int wordId(int i) {
+        return buffer.wordId(i);
+    }
+
+    // 清空命中，保留已分配的数组
+    public void clear() {
+        buffer.clear();
+        count = 0;
+    }
+
+    // 非STANDARD语义先把全部命中收集到buffer再筛选，筛选后以buffer为准
+    void selected() {
+        count = buffer.size();
+        if (countOnly) {
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.sensitivewords.utils;
+
+// 敏感词命中回调：start包含、end不包含，均为文本中的字符下标
+@FunctionalInterface
+public interface MatchHandler {
+    void onMatch(int start, int end, int wordId);
+}
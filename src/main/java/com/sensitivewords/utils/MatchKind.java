@@ -0,0 +1,21 @@
+package com.sensitivewords.utils;
+
+// 匹配语义
+public enum MatchKind {
+    // 报告全部命中，包括互相重叠、互为后缀的词
+    STANDARD,
+    // 从左到右选取互不重叠的命中：起点最靠左者优先，同一起点取词表中靠前的词
+    LEFTMOST_FIRST,
+    // 从左到右选取互不重叠的命中：起点最靠左者优先，同一起点取最长的词
+    LEFTMOST_LONGEST;
+
+    // 按请求参数解析，不区分大小写，支持短横线写法
+    public static MatchKind of(String value) {
+        for (MatchKind kind : values()) {
+            if (kind.name().equalsIgnoreCase(value.replace('-', '_'))) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("不支持的匹配语义: " + value);
+    }
+}
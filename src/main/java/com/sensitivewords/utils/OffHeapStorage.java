@@ -0,0 +1,140 @@
+package com.sensitivewords.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 堆外存储：把编译后的状态转移表复制到直接内存，GC不再标记、复制这些大数组
+// 生命周期显式管理：引用计数初始为1，代表所有者；读线程在使用期间pin住存储（计数加一），
+// 所有者调用release()放弃自己的一份，计数由1降到0的那次调用释放直接内存，正在扫描的线程不会读到已释放的内存；
+// release()之后pin()返回false，调用方应改用新发布的快照
+// 释放依赖JDK的sun.misc.Unsafe.invokeCleaner，不可用时退回由GC回收
+public final class OffHeapStorage {
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapStorage.class);
+    private static final Method INVOKE_CLEANER;
+    private static final Object UNSAFE;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("无法显式释放直接内存，改由GC回收", e);
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    // 所有者一份加上各读线程的pin，降到0后不再增加
+    private final AtomicLong references = new AtomicLong(1);
+    private volatile boolean released;
+    private boolean freed;
+    private long bytes;
+
+    // 分配一张与values内容相同的堆外int表，按本机字节序存放
+    synchronized IntTable allocate(IntTable values) {
+        if (released) {
+            throw new IllegalStateException("堆外存储已释放");
+        }
+        long size = (long) values.length() * Integer.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("单张表超过2GB，无法放入直接内存: " + size);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+        IntBuffer ints = buffer.asIntBuffer();
+        int[] array = values.array();
+        if (array != null) {
+            ints.put(array);
+        } else {
+            for (int i = 0, n = values.length(); i < n; i++) {
+                ints.put(i, values.get(i));
+            }
+        }
+        buffers.add(buffer);
+        bytes += size;
+        return IntTable.wrap(ints);
+    }
+
+    // 读线程开始使用存储，返回false表示已释放
+    // 计数已为0时不能再增加，因此检查和加一必须是同一次CAS
+    public boolean pin() {
+        while (true) {
+            long count = references.get();
+            if (released || count == 0) {
+                return false;
+            }
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void unpin() {
+        dereference();
+    }
+
+    // 所有者不再使用：没有pin时立即释放，否则由最后一个unpin()释放；重复调用无效
+    public void release() {
+        synchronized (this) {
+            if (released) {
+                return;
+            }
+            released = true;
+        }
+        dereference();
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    // 直接内存是否已经归还
+    public synchronized boolean isFreed() {
+        return freed;
+    }
+
+    // 已分配的直接内存字节数
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    private void dereference() {
+        long count = references.decrementAndGet();
+        if (count == 0) {
+            free();
+        } else if (count < 0) {
+            throw new IllegalStateException("unpin()次数多于pin()");
+        }
+    }
+
+    // 只由计数降到0的那次调用执行一次
+    private synchronized void free() {
+        freed = true;
+        if (INVOKE_CLEANER != null) {
+            for (ByteBuffer buffer : buffers) {
+                try {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                } catch (ReflectiveOperationException e) {
+                    logger.warn("释放直接内存失败，改由GC回收", e);
+                    break;
+                }
+            }
+        }
+        buffers.clear();
+        logger.info("已释放堆外自动机表 {}MB", bytes / 1048576);
+    }
+}
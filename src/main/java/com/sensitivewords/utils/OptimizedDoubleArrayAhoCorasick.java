@@ -1,35 +1,43 @@
 package com.sensitivewords.utils;
 
+import java.nio.CharBuffer;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class OptimizedDoubleArrayAhoCorasick {
+public class OptimizedDoubleArrayAhoCorasick implements SensitiveWordMatcher {
     private static final Logger logger = LoggerFactory.getLogger(OptimizedDoubleArrayAhoCorasick.class);
 
     // 使用更紧凑的数组存储
-    private int[] baseCheck; // 合并base和check数组
-    private final int[] failOutput; // 合并fail和output数组
-
-    // 字符映射优化
-    private final int[] charMap;
+    private final int[] baseCheck; // 合并base和check数组
+    private final int[] fail; // 失败指针
+
+    // 输出表：每个状态恰好结束的敏感词ID，以及沿失败链的下一个输出状态（字典后缀链接）
+    private final int[] outputWord;
+    private final int[] outputLink;
+    // 敏感词表及长度，下标即wordId
+    private final String[] words;
+    private final int[] wordLengths;
+    // 每个状态的子节点字符类（仅构建失败指针时使用）
+    private int[][] childrenOf;
+
+    // 字符映射优化：两级共享页表
+    private final CharClassTable charMap;
     private final int charCount;
 
     // 并发支持
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
-    // 性能统计
-    private final AtomicLong queryCount = new AtomicLong();
-    private final AtomicLong totalTime = new AtomicLong();
+    // 扫描延迟统计：按操作和文本长度区间记录直方图
+    private final ScanMetrics metrics = new ScanMetrics();
 
     // 状态标记
     private boolean isReadOnly = false;
 
-    // 线程本地统计
-    private final ThreadLocal<long[]> threadLocalStats = ThreadLocal.withInitial(() -> new long[2]);
+    // 构建统计
+    private final BuildStats buildStats;
 
     // 初始化
     public OptimizedDoubleArrayAhoCorasick(Collection<String> words) {
@@ -37,28 +45,54 @@ public class OptimizedDoubleArrayAhoCorasick {
 
         // 1. 构建字符映射
         logger.info("构建字符映射...");
-        this.charMap = buildCompactCharMap(words);
-        this.charCount = Arrays.stream(charMap).max().orElse(0) + 1;
+        int[] classes = buildCompactCharMap(words);
+        this.charMap = CharClassTable.of(classes);
+        this.charCount = Arrays.stream(classes).max().orElse(0) + 1;
         logger.info("字符映射构建完成，共映射 {} 个字符", charCount);
 
-        // 2. 初始化双数组
-        logger.info("初始化双数组...");
-        int size = calculateInitialSize(words);
-        this.baseCheck = new int[size * 2];
-        Arrays.fill(baseCheck, -1);
-        this.failOutput = new int[size];
-        logger.info("双数组初始化完成，大小: {}", size);
-
-        // 3. 构建Trie树
-        logger.info("开始构建Trie树...");
-        buildTrie(words);
-        logger.info("Trie树构建完成");
+        // 2. 按兄弟节点集合整体放置，构建双数组Trie树
+        logger.info("开始构建双数组Trie树...");
+        long startTime = System.nanoTime();
+        this.words = new LinkedHashSet<>(words).stream()
+                .filter(word -> word != null && !word.isEmpty())
+                .toArray(String[]::new);
+        int[][] keys = encodeKeys(this.words);
+        this.wordLengths = new int[keys.length];
+        for (int wordId = 0; wordId < keys.length; wordId++) {
+            wordLengths[wordId] = keys[wordId].length;
+        }
+        DoubleArrayBuilder builder = new DoubleArrayBuilder(calculateInitialSize(words));
+        builder.build(keys);
+        this.baseCheck = builder.compactBaseCheck();
+        int size = baseCheck.length / 2;
+        this.fail = new int[size];
+        this.outputWord = new int[size];
+        this.outputLink = new int[size];
+        Arrays.fill(outputWord, -1);
+        Arrays.fill(outputLink, -1);
+        this.childrenOf = builder.childrenOf;
+        for (int i = 0; i < builder.outputStates.size(); i++) {
+            int s = builder.outputStates.get(i);
+            // 编码后相同的敏感词落在同一状态，保留第一个
+            if (outputWord[s] < 0) {
+                outputWord[s] = builder.outputWordIds.get(i);
+            }
+        }
+        logger.info("双数组Trie树构建完成");
 
-        // 4. 构建失败指针
+        // 3. 构建失败指针
         logger.info("开始构建失败指针...");
         buildFailureLinks();
+        this.childrenOf = null;
         logger.info("失败指针构建完成");
 
+        long buildTimeMs = (System.nanoTime() - startTime) / 1_000_000;
+        this.buildStats = new BuildStats(builder.stateCount, size,
+                (double) builder.stateCount / size, buildTimeMs, builder.baseProbes);
+        logger.info("双数组构建耗时 {}ms, 状态数 {}, 数组大小 {}, 填充率 {}",
+                buildTimeMs, buildStats.stateCount, buildStats.arraySize,
+                String.format("%.2f%%", buildStats.fillRatio * 100));
+
         // 设置为只读模式
         this.isReadOnly = true;
 
@@ -95,163 +129,294 @@ public class OptimizedDoubleArrayAhoCorasick {
 
     // 计算初始数组大小
     private int calculateInitialSize(Collection<String> words) {
-        int totalLength = words.stream().mapToInt(String::length).sum();
-        // 经验公式：总字符数 * 2 + 敏感词数量 * 3
-        return Math.max(1024, totalLength * 2 + words.size() * 3);
+        int totalLength = words.stream().filter(Objects::nonNull).mapToInt(String::length).sum();
+        // 经验公式：总字符数 + 字符类数，放置完成后再压缩
+        return Math.max(1024, totalLength + charCount);
     }
 
-    // 构建Trie树
-    private void buildTrie(Collection<String> words) {
-        baseCheck[1] = 1; // 根节点的BASE值设为1
+    // 将敏感词编码为字符类序列，下标与wordId一致
+    private int[][] encodeKeys(String[] words) {
+        int[][] keys = new int[words.length][];
+        for (int wordId = 0; wordId < words.length; wordId++) {
+            String word = words[wordId];
+            int[] key = new int[word.length()];
+            int len = 0;
+            for (int i = 0; i < word.length(); i++) {
+                int t = charMap.classOf(word.charAt(i));
+                if (t == 0) continue; // 跳过未映射字符
+                key[len++] = t;
+            }
+            keys[wordId] = len == key.length ? key : Arrays.copyOf(key, len);
+        }
+        return keys;
+    }
 
-        int totalWords = words.size();
-        int processedWords = 0;
-        int lastProgress = 0;
+    // 双数组构建器：对每个节点一次性放置全部子节点（兄弟集合），
+    // 通过空闲槽位链表寻找能容纳整个兄弟集合的base，从根本上避免放置后的冲突
+    private static final class DoubleArrayBuilder {
+        private static final int FREE = -1;
+        // 空闲槽位作为首个子节点位置失败达到该次数后不再从它开始查找（参考darts-clone/cedar的做法）：
+        // 双数组前部接近填满后，剩下的零散空位几乎放不下新的兄弟集合，每次都从链表头逐个尝试会使构建退化为平方级
+        private static final int MAX_TRIALS = 16;
+
+        private int[] check;
+        private int[] base;
+        // 空闲槽位双向链表，哨兵为 capacity 之外的虚拟节点 -1
+        private int[] nextFree;
+        private int[] prevFree;
+        private int freeHead = -1;
+        private int freeTail = -1;
+        // 查找起点：空闲链表中第一个仍值得尝试的槽位，之前的空闲槽位已多次失败，只会被其他兄弟集合顺带占用
+        private int searchHead = -1;
+        // 各槽位作为首个子节点位置失败的次数
+        private int[] trials;
+        private int capacity;
+        private int maxUsed;
+
+        int[][] childrenOf;
+        final List<Integer> outputStates = new ArrayList<>();
+        final List<Integer> outputWordIds = new ArrayList<>();
+        private int[][] keys;
+        private Integer[] order;
+        int stateCount = 1;
+        long baseProbes;
+
+        DoubleArrayBuilder(int initialSize) {
+            this.capacity = 0;
+            this.check = new int[0];
+            this.base = new int[0];
+            this.nextFree = new int[0];
+            this.prevFree = new int[0];
+            this.trials = new int[0];
+            this.childrenOf = new int[0][];
+            grow(initialSize);
+            // 根节点占用0号槽位
+            takeSlot(0);
+            check[0] = 0;
+        }
 
-        for (String word : words) {
-            if (word == null || word.isEmpty()) continue;
+        // keys下标即wordId，按字典序排序后逐层放置
+        void build(int[][] keys) {
+            this.keys = keys;
+            this.order = new Integer[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Arrays.compare(keys[a], keys[b]));
+            int start = 0;
+            while (start < order.length && keys[order[start]].length == 0) {
+                start++; // 全部由未映射字符组成的词无法匹配
+            }
+            if (start == order.length) {
+                base[0] = 1;
+                return;
+            }
+            place(0, start, order.length, 0);
+        }
 
-            int s = 0; // 从根节点开始
-            for (char c : word.toCharArray()) {
-                int t = charMap[c];
-                if (t == 0) continue; // 跳过未映射字符
+        private int codeAt(int i, int depth) {
+            return keys[order[i]][depth];
+        }
+
+        // 放置节点s的子节点，order[left, right) 为以s为前缀的敏感词，depth为s的深度
+        private void place(int s, int left, int right, int depth) {
+            // 长度恰好为depth的敏感词在s处结束（已排序，位于区间开头）
+            while (left < right && keys[order[left]].length == depth) {
+                outputStates.add(s);
+                outputWordIds.add(order[left]);
+                left++;
+            }
+            if (left == right) {
+                base[s] = 1;
+                return;
+            }
 
-                int base = baseCheck[s * 2 + 1];
-                if (base < 0) base = 0; // 初始状态
-
-                int next = base + t;
-
-                // 处理冲突和数组扩容
-                while (next >= baseCheck.length / 2 || (baseCheck[next * 2] != -1 && baseCheck[next * 2] != s)) {
-                    if (next >= baseCheck.length / 2) {
-                        // 扩展数组
-                        int newSize = baseCheck.length * 2;
-                        int[] newBaseCheck = new int[newSize];
-                        Arrays.fill(newBaseCheck, -1);
-                        System.arraycopy(baseCheck, 0, newBaseCheck, 0, baseCheck.length);
-                        baseCheck = newBaseCheck;
-                        logger.info("数组扩容到 {}", newSize);
-                    } else {
-                        // 调整base值
-                        base++;
-                        next = base + t;
+            // 收集子节点字符类（升序）以及各自的区间
+            int[] codes = new int[right - left];
+            int[] bounds = new int[right - left + 1];
+            int count = 0;
+            for (int i = left; i < right; i++) {
+                int code = codeAt(i, depth);
+                if (count == 0 || codes[count - 1] != code) {
+                    codes[count] = code;
+                    bounds[count] = i;
+                    count++;
+                }
+            }
+            bounds[count] = right;
+            codes = Arrays.copyOf(codes, count);
+
+            int b = findBase(codes);
+            base[s] = b;
+            childrenOf[s] = codes;
+            for (int code : codes) {
+                int next = b + code;
+                takeSlot(next);
+                check[next] = s;
+                stateCount++;
+            }
+            for (int i = 0; i < count; i++) {
+                place(b + codes[i], bounds[i], bounds[i + 1], depth + 1);
+            }
+        }
+
+        // 沿空闲链表查找能容纳整个兄弟集合的base
+        private int findBase(int[] codes) {
+            int first = codes[0];
+            int last = codes[codes.length - 1];
+            int slot = searchHead;
+            while (true) {
+                if (slot == -1) {
+                    // 空闲槽位耗尽，在尾部扩容后从新增区域继续
+                    int oldCapacity = capacity;
+                    grow(capacity + Math.max(last + 1, capacity / 2));
+                    slot = nextFreeFrom(oldCapacity);
+                    continue;
+                }
+                baseProbes++;
+                int b = slot - first;
+                if (b >= 1) {
+                    if (b + last >= capacity) {
+                        grow(Math.max(b + last + 1, capacity + capacity / 2));
+                    }
+                    if (fits(b, codes)) {
+                        return b;
                     }
                 }
+                int next = nextFree[slot];
+                if (++trials[slot] >= MAX_TRIALS && slot == searchHead) {
+                    searchHead = next;
+                }
+                slot = next;
+            }
+        }
+
+        private boolean fits(int b, int[] codes) {
+            for (int code : codes) {
+                if (check[b + code] != FREE) {
+                    return false;
+                }
+            }
+            return true;
+        }
 
-                // 设置状态转移
-                baseCheck[s * 2 + 1] = base;
-                baseCheck[next * 2] = s;
-                baseCheck[next * 2 + 1] = 0; // 默认base值为0
+        private int nextFreeFrom(int index) {
+            for (int i = index; i < capacity; i++) {
+                if (check[i] == FREE) {
+                    return i;
+                }
+            }
+            return -1;
+        }
 
-                s = next;
+        // 扩容并把新增槽位接到空闲链表尾部
+        private void grow(int newCapacity) {
+            if (newCapacity <= capacity) {
+                return;
+            }
+            int oldCapacity = capacity;
+            check = Arrays.copyOf(check, newCapacity);
+            base = Arrays.copyOf(base, newCapacity);
+            nextFree = Arrays.copyOf(nextFree, newCapacity);
+            prevFree = Arrays.copyOf(prevFree, newCapacity);
+            trials = Arrays.copyOf(trials, newCapacity);
+            childrenOf = Arrays.copyOf(childrenOf, newCapacity);
+            for (int i = oldCapacity; i < newCapacity; i++) {
+                check[i] = FREE;
+                base[i] = FREE;
+                prevFree[i] = freeTail;
+                nextFree[i] = -1;
+                if (freeTail == -1) {
+                    freeHead = i;
+                } else {
+                    nextFree[freeTail] = i;
+                }
+                freeTail = i;
+            }
+            if (searchHead == -1) {
+                searchHead = oldCapacity;
             }
+            capacity = newCapacity;
+        }
 
-            // 标记结束状态
-            if (s >= 0 && s < failOutput.length) {
-                setOutputState(s);
+        // 从空闲链表中摘除槽位
+        private void takeSlot(int slot) {
+            int prev = prevFree[slot];
+            int next = nextFree[slot];
+            if (prev == -1) {
+                freeHead = next;
+            } else {
+                nextFree[prev] = next;
+            }
+            if (next == -1) {
+                freeTail = prev;
             } else {
-                logger.error("无效状态，无法标记结束状态: {}", s);
+                prevFree[next] = prev;
             }
+            if (slot == searchHead) {
+                searchHead = next;
+            }
+            maxUsed = Math.max(maxUsed, slot);
+        }
 
-            // 输出进度
-            processedWords++;
-            int progress = (int) ((processedWords / (double) totalWords) * 100);
-            if (progress >= lastProgress + 10) {
-                logger.info("Trie树构建进度: {}%", progress);
-                lastProgress = progress;
+        // 压缩：截掉最后一个已用槽位之后的空间，并合并为 [check, base] 交错布局
+        int[] compactBaseCheck() {
+            int size = maxUsed + 1;
+            int[] baseCheck = new int[size * 2];
+            for (int i = 0; i < size; i++) {
+                baseCheck[i * 2] = check[i];
+                baseCheck[i * 2 + 1] = base[i];
             }
+            childrenOf = Arrays.copyOf(childrenOf, size);
+            return baseCheck;
         }
     }
 
-    // 构建失败指针
+    // 构建失败指针和字典后缀链接
     private void buildFailureLinks() {
-        Queue<Integer> queue = new LinkedList<>();
+        int[] queue = new int[fail.length];
+        int head = 0;
+        int tail = 0;
 
         // 第一层节点的失败指针指向根节点
-        for (int i = 1; i < charCount; i++) {
-            int base = baseCheck[0 * 2 + 1];
-            if (base <= 0) base = 1; // 确保有效的base值
-
-            int s = base + i;
-            if (s >= 0 && s < baseCheck.length / 2 && baseCheck[s * 2] == 0) {
-                failOutput[s] = 0; // 第一层节点失败指针指向根节点
-                queue.offer(s);
+        int rootBase = baseCheck[1];
+        if (childrenOf[0] != null) {
+            for (int t : childrenOf[0]) {
+                int s = rootBase + t;
+                fail[s] = 0;
+                queue[tail++] = s;
             }
         }
 
         // 广度优先搜索构建失败指针
-        while (!queue.isEmpty()) {
-            int s = queue.poll();
-
-            if (s < 0 || s >= baseCheck.length / 2) {
-                logger.error("无效状态，跳过: {}", s);
-                continue;
-            }
+        while (head < tail) {
+            int s = queue[head++];
+            int[] children = childrenOf[s];
+            if (children == null) continue;
 
             int base = baseCheck[s * 2 + 1];
-            if (base < 0) continue;
-
-            for (int i = 1; i < charCount; i++) {
+            for (int i : children) {
                 int next = base + i;
-                if (next >= 0 && next < baseCheck.length / 2 && baseCheck[next * 2] == s) {
-                    queue.offer(next);
-
-                    // 获取失败指针
-                    int f = failOutput[s];
-                    if (f < 0) f = f & 0x7FFFFFFF; // 安全地清除最高位
-
-                    // 循环寻找正确的失败指针
-                    while (f != 0) {
-                        int fBase = baseCheck[f * 2 + 1];
-                        if (fBase < 0) {
-                            f = 0;
-                            break;
-                        }
-
-                        int fNext = fBase + i;
-                        if (fNext >= 0 && fNext < baseCheck.length / 2 && baseCheck[fNext * 2] == f) {
-                            f = fNext;
-                            break;
-                        }
-
-                        // 继续回溯
-                        f = failOutput[f];
-                        if (f < 0) f = f & 0x7FFFFFFF;
-                    }
-
-                    // 设置失败指针
-                    if (f >= 0 && f < failOutput.length) {
-                        // 保留输出状态标记
-                        boolean isOutput = isOutputState(next);
-                        boolean isFailOutput = isOutputState(f);
-
-                        // 设置失败指针
-                        failOutput[next] = f;
-
-                        // 如果失败指针指向的状态是输出状态，当前状态也是输出状态
-                        if (isFailOutput || isOutput) {
-                            setOutputState(next);
-                        }
+                queue[tail++] = next;
+
+                // 沿父节点的失败链寻找第一个拥有字符i转移的状态
+                int f = fail[s];
+                int target = 0;
+                while (true) {
+                    if (isValidState(f, i)) {
+                        target = baseCheck[f * 2 + 1] + i;
+                        break;
                     }
+                    if (f == 0) break;
+                    f = fail[f];
                 }
+                fail[next] = target;
+                // 字典后缀链接：失败状态本身有输出则指向它，否则继承它的链接
+                outputLink[next] = outputWord[target] >= 0 ? target : outputLink[target];
             }
         }
     }
 
-    // 设置输出状态
-    private void setOutputState(int s) {
-        if (s < 0 || s >= failOutput.length) {
-            logger.error("无效状态，无法标记为输出状态: {}", s);
-            return;
-        }
-
-        int currentValue = failOutput[s];
-        if (currentValue >= 0) {
-            // 只有当当前不是输出状态时，才设置最高位
-            failOutput[s] = currentValue | 0x80000000;
-        }
-    }
-
     // 验证状态机正确性
     private void validateStateMachine() {
         logger.info("开始验证状态机...");
@@ -261,19 +426,15 @@ public class OptimizedDoubleArrayAhoCorasick {
         int outputStates = 0;
         int maxDepth = 0;
 
-        for (int s = 0; s < failOutput.length; s++) {
+        for (int s = 0; s < fail.length; s++) {
             // 跳过无效状态
             if (s > 0 && baseCheck[s * 2] <= 0) {
                 continue;
             }
 
             // 检查状态是否为输出状态
-            boolean isOutput = false;
-            if (s < failOutput.length) {
-                isOutput = isOutputState(s);
-                if (isOutput) {
-                    outputStates++;
-                }
+            if (isOutputState(s)) {
+                outputStates++;
             }
 
             // 统计有效状态
@@ -325,87 +486,102 @@ public class OptimizedDoubleArrayAhoCorasick {
         return baseCheck[next * 2] == s;
     }
 
-    // 获取下一个状态
-    private int getNextState(int s, int t) {
-        if (s < 0 || s >= baseCheck.length / 2) {
-            logger.error("无效状态: {}", s);
-            return 0;
-        }
-
-        int base = baseCheck[s * 2 + 1];
-        if (base < 0) {
-            logger.error("无效base值: {}, 状态: {}", base, s);
-            return 0;
+    // 是否为输出状态（自身或任一后缀为敏感词结尾）
+    private boolean isOutputState(int s) {
+        if (s < 0 || s >= fail.length) {
+            return false;
         }
+        return outputWord[s] >= 0 || outputLink[s] >= 0;
+    }
 
-        int next = base + t;
-        if (next < 0 || next >= baseCheck.length / 2) {
-            logger.error("状态转移越界: {}, 状态: {}, 字符: {}", next, s, t);
-            return 0;
-        }
+    // 获取敏感词
+    @Override
+    public String getWord(int wordId) {
+        return words[wordId];
+    }
 
-        if (baseCheck[next * 2] != s) {
-            // 状态转移不存在，返回失败状态
-            return 0;
-        }
+    // 获取敏感词长度
+    public int getWordLength(int wordId) {
+        return wordLengths[wordId];
+    }
 
-        return next;
+    public int getWordCount() {
+        return words.length;
     }
 
-    // 获取失败状态
-    private int getFailState(int s) {
-        if (s < 0 || s >= failOutput.length) {
-            logger.error("无效状态: {}", s);
-            return 0;
-        }
+    // 遍历文本中的全部命中（包括互相重叠、互为后缀的敏感词），不产生额外对象
+    @Override
+    public void forEachMatch(CharSequence text, MatchHandler handler) {
+        int s = 0;
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            int t = charMap.classOf(text.charAt(i));
 
-        int failState = failOutput[s];
-        // 如果是负数（最高位为1），则清除符号位
-        if (failState < 0) {
-            return failState & 0x7FFFFFFF;  // 安全地清除最高位
-        }
-        return failState;  // 已经是正数，直接返回
-    }
+            while (s != 0 && !isValidState(s, t)) {
+                s = fail[s];
+            }
+            if (!isValidState(s, t)) {
+                continue;
+            }
+            s = baseCheck[s * 2 + 1] + t;
 
-    // 是否为输出状态
-    private boolean isOutputState(int s) {
-        if (s < 0 || s >= failOutput.length) {
-            return false;
+            int o = outputWord[s] >= 0 ? s : outputLink[s];
+            while (o >= 0) {
+                int wordId = outputWord[o];
+                handler.onMatch(i + 1 - wordLengths[wordId], i + 1, wordId);
+                o = outputLink[o];
+            }
         }
-
-        // 直接检查是否为负数（最高位为1）
-        return failOutput[s] < 0;
     }
 
-    // 获取关键词长度
-    private int getKeywordLength(int state) {
-        if (state <= 0) return 0;
-
-        int len = 0;
-        Set<Integer> visited = new HashSet<>();
+    // 检查文本是否包含敏感词，命中即返回，不产生额外对象；null视为不包含
+    @Override
+    public boolean containsSensitiveWords(CharSequence text) {
+        long startTime = System.nanoTime();
+        boolean found = text != null && containsAny(text);
+        metrics.record(ScanMetrics.Operation.CONTAINS, text == null ? 0 : text.length(), startTime);
+        return found;
+    }
 
-        while (state > 0 && !visited.contains(state)) {
-            visited.add(state);
-            len++;
+    private boolean containsAny(CharSequence text) {
+        int s = 0;
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            int t = charMap.classOf(text.charAt(i));
 
-            if (state * 2 >= baseCheck.length) {
-                logger.error("状态超出边界: {}", state);
-                break;
+            while (s != 0 && !isValidState(s, t)) {
+                s = fail[s];
+            }
+            if (!isValidState(s, t)) {
+                continue;
+            }
+            s = baseCheck[s * 2 + 1] + t;
+            if (outputWord[s] >= 0 || outputLink[s] >= 0) {
+                return true;
             }
-
-            state = baseCheck[state * 2];
-            if (state < 0) break; // 安全校验
         }
+        return false;
+    }
 
-        return len;
+    // 匹配文本中的全部敏感词
+    public List<String> matchAllSensitiveWords(String text) {
+        long startTime = System.nanoTime();
+        List<String> matches = new ArrayList<>();
+        if (text != null && !text.isEmpty()) {
+            forEachMatch(text, (start, end, wordId) -> matches.add(words[wordId]));
+        }
+        metrics.record(ScanMetrics.Operation.MATCH, text == null ? 0 : text.length(), startTime);
+        return matches;
     }
 
-    // 优化后的敏感词替换方法
+    // 敏感词替换，重叠的命中一并覆盖
     public String replace(String text, char replaceChar) {
-        long startTime = System.nanoTime();
+        return replace(text, replaceChar, MatchKind.STANDARD);
+    }
 
-        StringBuilder result = new StringBuilder(text);
-        int s = 0;
+    // 按指定匹配语义替换：先合并命中区间，再逐段批量复制原文、填充掩码
+    public String replace(String text, char replaceChar, MatchKind kind) {
+        long startTime = System.nanoTime();
 
         // 使用读锁保护共享数据
         try {
@@ -413,46 +589,68 @@ public class OptimizedDoubleArrayAhoCorasick {
                 lock.readLock().lock();
             }
 
-            for (int i = 0; i < text.length(); i++) {
-                char c = text.charAt(i);
-                int t = charMap[c];
-
-                // 优化状态转移
-                while (s != 0 && !isValidState(s, t)) {
-                    s = getFailState(s);
-                    if (s <= 0) {
-                        s = 0;
-                        break;
-                    }
-                }
-
-                if (isValidState(s, t)) {
-                    s = getNextState(s, t);
-
-                    if (isOutputState(s)) {
-                        int len = getKeywordLength(s);
-                        int start = i + 1 - len;
-                        for (int j = Math.max(0, start); j <= i; j++) {
-                            result.setCharAt(j, replaceChar);
-                        }
-                    }
-                }
+            // 未命中时直接返回原字符串，不分配任何对象
+            if (text == null || text.isEmpty() || !containsAny(text)) {
+                return text;
             }
-
-            return result.toString();
+            MatchBuffer buffer = new MatchBuffer();
+            forEachMatch(text, buffer);
+            buffer.select(kind);
+            return buffer.mask(text, replaceChar);
         } finally {
             if (!isReadOnly) {
                 lock.readLock().unlock();
             }
-            recordPerformance(startTime);
+            metrics.record(ScanMetrics.Operation.REPLACE, text == null ? 0 : text.length(), startTime);
+        }
+    }
+
+    // 把替换后的文本写入 out[offset, offset + text.length())，合并后的替换区间写入ranges，返回区间数
+    // 返回0时不写入out，调用方直接使用原文；ranges可复用，整个过程不分配新对象
+    public int replaceInto(CharSequence text, char replaceChar, MatchKind kind, char[] out, int offset,
+                           MaskRanges ranges) {
+        ranges.clear();
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        if (offset < 0 || out.length - offset < text.length()) {
+            throw new IllegalArgumentException("输出缓冲区容量不足: 需要 " + text.length());
         }
+        MatchBuffer buffer = ranges.buffer;
+        forEachMatch(text, buffer);
+        buffer.select(kind);
+        if (buffer.mergeSpans() > 0) {
+            buffer.writeMasked(text, replaceChar, out, offset);
+        }
+        return buffer.size();
     }
 
-    // 批量替换
+    // 同上，写入out的当前位置并推进position；返回0时不写入
+    public int replaceInto(CharSequence text, char replaceChar, MatchKind kind, CharBuffer out, MaskRanges ranges) {
+        ranges.clear();
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        if (out.remaining() < text.length()) {
+            throw new IllegalArgumentException("输出缓冲区容量不足: 需要 " + text.length());
+        }
+        MatchBuffer buffer = ranges.buffer;
+        forEachMatch(text, buffer);
+        buffer.select(kind);
+        if (buffer.mergeSpans() > 0) {
+            buffer.writeMasked(text, replaceChar, out);
+        }
+        return buffer.size();
+    }
+
+    // 批量替换，在共享的批量线程池上执行，结果与输入顺序一致
     public List<String> batchReplace(List<String> texts, char replaceChar) {
-        return texts.parallelStream()
-                .map(text -> replace(text, replaceChar))
-                .collect(Collectors.toList());
+        return batchReplace(texts, replaceChar, BatchExecutor.shared());
+    }
+
+    // 批量替换，使用指定的线程池；每批耗时见 BatchExecutor.getBatchStats()
+    public List<String> batchReplace(List<String> texts, char replaceChar, BatchExecutor executor) {
+        return executor.map(texts, text -> replace(text, replaceChar));
     }
 
     // 动态添加敏感词（线程安全）
@@ -471,51 +669,34 @@ public class OptimizedDoubleArrayAhoCorasick {
         }
     }
 
-    // 优化的性能记录方法
-    private void recordPerformance(long startTime) {
-        long duration = System.nanoTime() - startTime;
-
-        // 使用线程局部变量减少竞争
-        long[] stats = threadLocalStats.get();
-        stats[0]++; // 本地查询计数
-        stats[1] += duration; // 本地时间累计
-
-        // 定期批量更新（每100次查询）
-        if (stats[0] % 100 == 0) {
-            queryCount.addAndGet(stats[0]);
-            totalTime.addAndGet(stats[1]);
-            stats[0] = 0;
-            stats[1] = 0;
-        }
+    // 扫描延迟：检测、匹配、替换按文本长度区间的分位数
+    public ScanMetrics getMetrics() {
+        return metrics;
     }
 
-    // 性能统计
-    public PerformanceStats getPerformanceStats() {
-        // 确保所有线程局部统计都被计入
-        ThreadLocal<long[]> localStats = threadLocalStats;
-        Thread[] threads = new Thread[Thread.activeCount()];
-        Thread.enumerate(threads);
-
-        long count = queryCount.get();
-        long time = totalTime.get();
-
-        return new PerformanceStats(
-                count,
-                time,
-                count > 0 ? (double) time / count : 0
-        );
+    public BuildStats getBuildStats() {
+        return buildStats;
     }
 
-    // 性能统计类
-    public static class PerformanceStats {
-        public final long queryCount;
-        public final long totalTimeNs;
-        public final double avgTimeNs;
+    // 构建统计类
+    public static class BuildStats {
+        public final int stateCount;
+        public final int arraySize;
+        public final double fillRatio;
+        public final long buildTimeMs;
+        // 查找base时尝试过的空闲槽位总数，衡量放置兄弟集合的代价
+        public final long baseProbes;
+
+        public BuildStats(int stateCount, int arraySize, double fillRatio, long buildTimeMs) {
+            this(stateCount, arraySize, fillRatio, buildTimeMs, 0);
+        }
 
-        public PerformanceStats(long queryCount, long totalTimeNs, double avgTimeNs) {
-            this.queryCount = queryCount;
-            this.totalTimeNs = totalTimeNs;
-            this.avgTimeNs = avgTimeNs;
+        public BuildStats(int stateCount, int arraySize, double fillRatio, long buildTimeMs, long baseProbes) {
+            this.stateCount = stateCount;
+            this.arraySize = arraySize;
+            this.fillRatio = fillRatio;
+            this.buildTimeMs = buildTimeMs;
+            this.baseProbes = baseProbes;
         }
     }
-}
\ No newline at end of file
+}
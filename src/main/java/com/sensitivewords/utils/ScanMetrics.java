@@ -0,0 +1,62 @@
+package com.sensitivewords.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 扫描延迟统计：按操作（检测、匹配、替换）和文本长度区间分别记录直方图
+// 长度区间分开统计，短文本的分位数不会被少量长文本拉高，长文本的耗时也不会被大量短文本掩盖
+// 用法：long start = System.nanoTime(); ...; metrics.record(Operation.CONTAINS, text.length(), start)
+// AhoCorasickAutomaton的各个扫描入口都会记录：按分类策略检测、取命中分类计为CONTAINS，按分类取词、遍历命中计为MATCH，
+// 各种替换（含maskInto）计为REPLACE；UTF-8字节入口按字节数计入长度区间，流式扫描按扫描的字符数计入，耗时包含读取输入
+public final class ScanMetrics {
+    // 文本长度区间的上界（含），最后一个区间不设上界
+    private static final int[] LENGTH_LIMITS = {64, 512, 4096, 32768};
+    private static final String[] LENGTH_LABELS = {"0-64", "65-512", "513-4096", "4097-32768", "32769+"};
+
+    private final LatencyHistogram[][] histograms = new LatencyHistogram[Operation.values().length][LENGTH_LABELS.length];
+
+    public ScanMetrics() {
+        for (LatencyHistogram[] byLength : histograms) {
+            for (int i = 0; i < byLength.length; i++) {
+                byLength[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    // 记录一次从startNanos（System.nanoTime()）到现在的耗时
+    public void record(Operation operation, int textLength, long startNanos) {
+        histograms[operation.ordinal()][lengthBucketOf(textLength)].record(System.nanoTime() - startNanos);
+    }
+
+    static int lengthBucketOf(int textLength) {
+        int bucket = 0;
+        while (bucket < LENGTH_LIMITS.length && textLength > LENGTH_LIMITS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    public LatencyHistogram.Summary summarize(Operation operation, int lengthBucket) {
+        return histograms[operation.ordinal()][lengthBucket].summarize();
+    }
+
+    // 操作 -> 长度区间 -> 延迟汇总，省略没有样本的区间
+    public Map<String, Map<String, LatencyHistogram.Summary>> summarize() {
+        Map<String, Map<String, LatencyHistogram.Summary>> result = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            Map<String, LatencyHistogram.Summary> byLength = new LinkedHashMap<>();
+            for (int i = 0; i < LENGTH_LABELS.length; i++) {
+                LatencyHistogram.Summary summary = histograms[operation.ordinal()][i].summarize();
+                if (summary.count > 0) {
+                    byLength.put(LENGTH_LABELS[i], summary);
+                }
+            }
+            result.put(operation.name().toLowerCase(), byLength);
+        }
+        return result;
+    }
+
+    public enum Operation {
+        CONTAINS, MATCH, REPLACE
+    }
+}
@@ -0,0 +1,167 @@
+package com.sensitivewords.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+// 扫描结果缓存：聊天、评论流量中大量重复文本（问候语、复制粘贴的刷屏），命中时只需计算一次哈希
+// 键为文本本身、操作和词表版本，词表任何变化都会产生新版本，旧版本的结果不会再被命中；
+// 发布新词表时另外整体清空，避免旧结果占着容量
+// 键的散列使用进程启动时随机生成种子的64位哈希，比较时先比哈希再比原文，哈希碰撞的文本各占一条，命中计数准确
+// 缓存的结果在多个请求间共享，返回的列表不可修改
+public final class ScanResultCache {
+    private static final int CONTAINS = 0;
+    private static final int MATCHES = 1;
+    private static final int MASK = 2;
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final Cache<Key, Object> cache;
+    private final int maxTextLength;
+    private final long seed = new SecureRandom().nextLong();
+
+    private ScanResultCache(long maxSize, int maxTextLength) {
+        this.cache = maxSize > 0 ? Caffeine.newBuilder().maximumSize(maxSize).recordStats().build() : null;
+        this.maxTextLength = maxTextLength;
+    }
+
+    // 最多缓存maxSize条结果，长度超过maxTextLength的文本不缓存（很少重复，哈希本身也接近一次扫描的开销）
+    public static ScanResultCache create(long maxSize, int maxTextLength) {
+        if (maxSize < 0 || maxTextLength < 0) {
+            throw new IllegalArgumentException("缓存容量和文本长度上限不能为负数");
+        }
+        return new ScanResultCache(maxSize, maxTextLength);
+    }
+
+    // 不缓存，直接扫描
+    public static ScanResultCache disabled() {
+        return new ScanResultCache(0, 0);
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public boolean containsSensitiveWords(AutomatonSnapshot snapshot, String text) {
+        return get(snapshot, text, CONTAINS, () -> snapshot.containsSensitiveWords(text));
+    }
+
+    public List<String> matchAllSensitiveWords(AutomatonSnapshot snapshot, String text, MatchKind kind) {
+        return get(snapshot, text, MATCHES << 24 | kind.ordinal() << 16,
+                () -> Collections.unmodifiableList(snapshot.matchAllSensitiveWords(text, kind)));
+    }
+
+    public String mask(AutomatonSnapshot snapshot, String text, char maskChar, MatchKind kind) {
+        return get(snapshot, text, MASK << 24 | kind.ordinal() << 16 | maskChar,
+                () -> snapshot.mask(text, maskChar, kind));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(AutomatonSnapshot snapshot, String text, int operation, Supplier<T> scan) {
+        if (cache == null || text == null || text.isEmpty() || text.length() > maxTextLength) {
+            return scan.get();
+        }
+        Key key = new Key(hash(text), text, operation, snapshot.getVersion());
+        Object cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T result = scan.get();
+        cache.put(key, result);
+        return result;
+    }
+
+    // 词表变化时清空全部结果
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    public long getHitCount() {
+        return cache == null ? 0 : cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache == null ? 0 : cache.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return cache == null ? 0 : cache.stats().evictionCount();
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    @Override
+    public String toString() {
+        if (cache == null) {
+            return "结果缓存未启用";
+        }
+        CacheStats stats = cache.stats();
+        return String.format("结果缓存 %d 条，命中 %d，未命中 %d，命中率 %.1f%%，淘汰 %d",
+                cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate() * 100, stats.evictionCount());
+    }
+
+    // 带种子的64位哈希：每次吸收4个字符，最后做一次雪崩混合
+    long hash(String text) {
+        int length = text.length();
+        long h = seed ^ length * MULTIPLIER;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long block = text.charAt(i)
+                    | (long) text.charAt(i + 1) << 16
+                    | (long) text.charAt(i + 2) << 32
+                    | (long) text.charAt(i + 3) << 48;
+            h = Long.rotateLeft(h ^ block * MULTIPLIER, 29) * MULTIPLIER;
+        }
+        long tail = 0;
+        for (; i < length; i++) {
+            tail = tail << 16 | text.charAt(i);
+        }
+        h = Long.rotateLeft(h ^ tail * MULTIPLIER, 29) * MULTIPLIER;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ h >>> 33;
+    }
+
+    // 散列只用预先算好的哈希，不再遍历文本；相等时先比较哈希、操作和版本，最后才比较原文
+    static final class Key {
+        private final long hash;
+        private final String text;
+        private final int operation;
+        private final long version;
+
+        Key(long hash, String text, int operation, long version) {
+            this.hash = hash;
+            this.text = text;
+            this.operation = operation;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return hash == other.hash && operation == other.operation && version == other.version
+                    && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash) * 31 + operation;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.sensitivewords.utils;
+
+// 各匹配引擎的公共接口：AC自动机快照、双数组AC自动机、Wu-Manber
+// wordId为构建时传入的词表下标
+public interface SensitiveWordMatcher {
+    // 文本是否包含敏感词，命中即返回
+    boolean containsSensitiveWords(CharSequence text);
+
+    // 遍历文本中的全部命中（包括互相重叠的命中），报告顺序由各引擎决定
+    void forEachMatch(CharSequence text, MatchHandler handler);
+
+    // 把全部命中收集到collector（先清空），返回命中个数
+    default int collectMatches(CharSequence text, MatchCollector collector) {
+        collector.clear();
+        if (text != null && text.length() > 0) {
+            forEachMatch(text, collector);
+        }
+        return collector.count();
+    }
+
+    String getWord(int wordId);
+}
@@ -0,0 +1,7 @@
+package com.sensitivewords.utils;
+
+// 流式扫描的命中回调：start包含、end不包含，均为从流起点计算的绝对字符偏移
+@FunctionalInterface
+public interface StreamMatchHandler {
+    void onMatch(long start, long end, int wordId);
+}
@@ -0,0 +1,203 @@
+package com.sensitivewords.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.BitSet;
+
+// 增量式流扫描器：自动机状态和绝对偏移在分块之间延续，
+// 敏感词跨越分块边界时同样能命中，内存占用只取决于缓冲区大小，与输入长度无关
+// 非线程安全，每条流使用一个实例
+public final class StreamScanner {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final CompiledAutomaton automaton;
+    private final StreamMatchHandler handler;
+    private final int bufferSize;
+    private int state = CompiledAutomaton.ROOT;
+    // 已消费的字符数
+    private long position;
+    // 最近若干个非忽略字符的偏移（环形缓冲，容量不小于最长敏感词），
+    // 命中中间夹有可忽略字符时据此还原起点
+    private final long[] recent;
+    private final int recentMask;
+    // 已消费的非忽略字符数
+    private long consumed;
+    // 不报告的wordId（快照中已删除的词），没有时为null
+    private final BitSet excluded;
+    // 快照增量层的扫描器，读同样的分块，没有时为null
+    private final StreamScanner overlay;
+
+    public StreamScanner(CompiledAutomaton automaton, StreamMatchHandler handler) {
+        this(automaton, handler, DEFAULT_BUFFER_SIZE);
+    }
+
+    public StreamScanner(CompiledAutomaton automaton, StreamMatchHandler handler, int bufferSize) {
+        this(automaton, handler, bufferSize, null, null);
+    }
+
+    StreamScanner(CompiledAutomaton automaton, StreamMatchHandler handler, BitSet excluded, StreamScanner overlay) {
+        this(automaton, handler, DEFAULT_BUFFER_SIZE, excluded, overlay);
+    }
+
+    private StreamScanner(CompiledAutomaton automaton, StreamMatchHandler handler, int bufferSize,
+                          BitSet excluded, StreamScanner overlay) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("缓冲区大小必须为正数: " + bufferSize);
+        }
+        this.automaton = automaton;
+        this.handler = handler;
+        this.bufferSize = bufferSize;
+        int capacity = Integer.highestOneBit(Math.max(1, automaton.getMaxWordLength()) * 2 - 1);
+        this.recent = new long[capacity];
+        this.recentMask = capacity - 1;
+        this.excluded = excluded;
+        this.overlay = overlay;
+    }
+
+    // 扫描一个分块
+    public void feed(char[] chars, int offset, int length) {
+        final CompiledAutomaton automaton = this.automaton;
+        int s = state;
+        long base = position - offset;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int cls = automaton.classOf(chars[i]);
+            if (cls == CompiledAutomaton.IGNORED_CLASS) {
+                continue;
+            }
+            s = automaton.nextState(s, cls);
+            recent[(int) (consumed++ & recentMask)] = base + i;
+            if (automaton.isTerminal(s)) {
+                emit(s, base + i + 1);
+            }
+        }
+        state = s;
+        position += length;
+        if (overlay != null) {
+            overlay.feed(chars, offset, length);
+        }
+    }
+
+    // 扫描一个分块，消费 buffer 中剩余的全部字符
+    public void feed(CharBuffer buffer) {
+        if (buffer.hasArray()) {
+            int length = buffer.remaining();
+            feed(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            buffer.position(buffer.limit());
+            return;
+        }
+        if (overlay != null) {
+            overlay.feed(buffer.duplicate());
+        }
+        final CompiledAutomaton automaton = this.automaton;
+        int s = state;
+        while (buffer.hasRemaining()) {
+            int cls = automaton.classOf(buffer.get());
+            position++;
+            if (cls == CompiledAutomaton.IGNORED_CLASS) {
+                continue;
+            }
+            s = automaton.nextState(s, cls);
+            recent[(int) (consumed++ & recentMask)] = position - 1;
+            if (automaton.isTerminal(s)) {
+                emit(s, position);
+            }
+        }
+        state = s;
+    }
+
+    // 报告当前状态上的全部命中（自身及字典后缀链上的输出）
+    private void emit(int s, long end) {
+        for (int o = automaton.firstOutput(s); o >= 0; o = automaton.outputLinkAt(o)) {
+            int wordId = automaton.wordIdAt(o);
+            if (excluded != null && excluded.get(wordId)) {
+                continue;
+            }
+            // 起点是倒数第wordLength个非忽略字符
+            long start = recent[(int) ((consumed - automaton.wordLength(wordId)) & recentMask)];
+            handler.onMatch(start, end, wordId);
+        }
+    }
+
+    // 扫描Reader直到结束，返回本次读取的字符数
+    public long scan(Reader reader) throws IOException {
+        char[] buffer = new char[bufferSize];
+        long start = position;
+        int n;
+        while ((n = reader.read(buffer)) != -1) {
+            feed(buffer, 0, n);
+        }
+        return position - start;
+    }
+
+    public long scan(InputStream in, Charset charset) throws IOException {
+        return scan(Channels.newChannel(in), charset);
+    }
+
+    // 边读边解码，字节缓冲和字符缓冲都是定长的；多字节字符跨越读取边界时保留到下一轮解码
+    public long scan(ReadableByteChannel channel, Charset charset) throws IOException {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(bufferSize);
+        CharBuffer chars = CharBuffer.allocate(bufferSize);
+        long start = position;
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            endOfInput = channel.read(bytes) == -1;
+            bytes.flip();
+            decode(decoder, bytes, chars, endOfInput);
+            bytes.compact();
+        }
+        CoderResult result;
+        do {
+            result = decoder.flush(chars);
+            drain(chars);
+        } while (result.isOverflow());
+        return position - start;
+    }
+
+    private void decode(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chars, boolean endOfInput)
+            throws CharacterCodingException {
+        while (true) {
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            drain(chars);
+            if (result.isUnderflow()) {
+                return;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+        }
+    }
+
+    private void drain(CharBuffer chars) {
+        chars.flip();
+        feed(chars);
+        chars.clear();
+    }
+
+    // 已消费的字符数
+    public long getPosition() {
+        return position;
+    }
+
+    // 重置到流起点，可复用于下一条流
+    public void reset() {
+        state = CompiledAutomaton.ROOT;
+        position = 0;
+        consumed = 0;
+        if (overlay != null) {
+            overlay.reset();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.sensitivewords.utils;
+
+import java.util.ArrayDeque;
+
+// Trie树的堆内存估算：各存储方式的节点数，以及当前结构和旧结构（每个节点一个256槽数组，
+// 其余字符放入HashMap<Character, CompactTrieNode>）的估算字节数
+// 按64位JVM、开启压缩指针、8字节对齐估算，与实际堆占用会有少量出入
+public final class TrieFootprint {
+    private int nodes;
+    private int leafNodes;
+    private int singleChildNodes;
+    private int sortedNodes;
+    private int denseNodes;
+    private long bytes;
+    private long legacyBytes;
+
+    private TrieFootprint() {
+    }
+
+    public static TrieFootprint of(CompactTrieNode root) {
+        TrieFootprint footprint = new TrieFootprint();
+        ArrayDeque<CompactTrieNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            CompactTrieNode node = pending.pop();
+            footprint.add(node);
+            for (int i = 0; i < node.getChildCount(); i++) {
+                pending.push(node.getChildAt(i));
+            }
+        }
+        return footprint;
+    }
+
+    private void add(CompactTrieNode node) {
+        nodes++;
+        switch (node.kind()) {
+            case 0 -> leafNodes++;
+            case 1 -> singleChildNodes++;
+            case 2 -> sortedNodes++;
+            default -> denseNodes++;
+        }
+        bytes += node.shallowSize();
+        legacyBytes += legacySize(node);
+    }
+
+    // 旧结构：节点对象48 + CompactTrieNode[256] 1040 + 子边字符数组；
+    // 字符不小于256的子节点另占HashMap（对象48 + 桶数组）和每项的Node(32) + Character(16)
+    private static long legacySize(CompactTrieNode node) {
+        int count = node.getChildCount();
+        long size = 48 + 1040;
+        if (count > 0) {
+            size += align(16 + 2L * Math.max(2, Integer.highestOneBit(count - 1) << 1));
+        }
+        int rare = 0;
+        for (int i = 0; i < count; i++) {
+            if (node.getChildChar(i) >= 256) {
+                rare++;
+            }
+        }
+        if (rare > 0) {
+            int buckets = Math.max(16, Integer.highestOneBit(Math.max(1, (int) (rare / 0.75f))) << 1);
+            size += 48 + align(16 + 4L * buckets) + rare * (32L + 16);
+        }
+        return size;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    public int getLeafNodes() {
+        return leafNodes;
+    }
+
+    public int getSingleChildNodes() {
+        return singleChildNodes;
+    }
+
+    public int getSortedNodes() {
+        return sortedNodes;
+    }
+
+    public int getDenseNodes() {
+        return denseNodes;
+    }
+
+    // 当前结构的估算字节数
+    public long getBytes() {
+        return bytes;
+    }
+
+    // 旧结构的估算字节数
+    public long getLegacyBytes() {
+        return legacyBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("节点 %d（叶子 %d，单子节点 %d，排序数组 %d，稠密数组 %d），估算 %.1fMB，旧结构估算 %.1fMB",
+                nodes, leafNodes, singleChildNodes, sortedNodes, denseNodes,
+                bytes / 1048576.0, legacyBytes / 1048576.0);
+    }
+}
@@ -0,0 +1,265 @@
+package com.sensitivewords.utils;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.List;
+
+// 直接在UTF-8字节上扫描：逐个就地解码出字符，送入与字符串扫描完全相同的编译自动机，
+// 归一化（大小写、全半角、繁简）、可忽略字符和wordId都与字符串扫描一致；
+// 不生成String或UTF-16副本，堆内和直接内存的ByteBuffer均可使用
+// 命中的起止位置均为字节偏移；非法的UTF-8字节按U+FFFD处理，与String解码后的扫描结果相同
+public final class Utf8Automaton {
+    // 解码结果：低21位为码点，高位为字节数
+    private static final int CODE_POINT_MASK = (1 << 21) - 1;
+    private static final int LENGTH_SHIFT = 21;
+    private static final int MALFORMED = '\uFFFD' | 1 << LENGTH_SHIFT;
+    // advance的返回值：字符整个可忽略，状态不变
+    private static final int IGNORED = -1;
+
+    private final CompiledAutomaton automaton;
+
+    Utf8Automaton(CompiledAutomaton automaton) {
+        this.automaton = automaton;
+    }
+
+    // 按标准归一化规则编译词表，wordId为词表下标
+    public static Utf8Automaton build(List<String> words) {
+        return AutomatonSnapshot.builder().addWords(words).build().getUtf8Automaton();
+    }
+
+    // 检查字节区间是否包含敏感词
+    public boolean containsSensitiveWords(byte[] bytes, int offset, int length) {
+        return scan(bytes, offset, length, WordCategory.ALL, null, null);
+    }
+
+    // 检查 [position, limit) 是否包含敏感词，不改变缓冲区的position
+    public boolean containsSensitiveWords(ByteBuffer buffer) {
+        return scan(buffer, WordCategory.ALL, null, null);
+    }
+
+    // 遍历字节区间内的全部命中，偏移相对于offset
+    public void forEachMatch(byte[] bytes, int offset, int length, MatchHandler handler) {
+        scan(bytes, offset, length, WordCategory.ALL, null, handler);
+    }
+
+    // 遍历 [position, limit) 内的全部命中，偏移相对于position，不改变缓冲区的position
+    public void forEachMatch(ByteBuffer buffer, MatchHandler handler) {
+        scan(buffer, WordCategory.ALL, null, handler);
+    }
+
+    // 扫描字节区间：handler为null时遇到第一个有效命中即返回true；否则报告全部有效命中
+    // 只报告分类与policy有交集、且不在removed中的命中
+    boolean scan(byte[] bytes, int offset, int length, int policy, BitSet removed, MatchHandler handler) {
+        final CompiledAutomaton automaton = this.automaton;
+        int state = CompiledAutomaton.ROOT;
+        for (int i = offset, end = offset + length; i < end; ) {
+            // 处于根节点时直接跳过不可能作为首字符的ASCII字节
+            if (state == CompiledAutomaton.ROOT && (i = automaton.skipToCandidate(bytes, i, end)) == end) {
+                break;
+            }
+            int b = bytes[i];
+            int decoded = b >= 0 ? b | 1 << LENGTH_SHIFT : decode(bytes, i, end);
+            int codePoint = decoded & CODE_POINT_MASK;
+            i += decoded >>> LENGTH_SHIFT;
+            int next = advance(state, codePoint);
+            // 可忽略字符不改变状态，跳过以免重复报告上一个字符处的命中
+            if (next == IGNORED) {
+                continue;
+            }
+            state = next;
+            if (automaton.isTerminal(state)) {
+                for (int o = automaton.firstOutput(state); o >= 0; o = automaton.outputLinkAt(o)) {
+                    int wordId = automaton.wordIdAt(o);
+                    if ((automaton.categoriesAt(o) & policy) == 0 || (removed != null && removed.get(wordId))) {
+                        continue;
+                    }
+                    if (handler == null) {
+                        return true;
+                    }
+                    handler.onMatch(startOf(bytes, offset, i, automaton.wordLength(wordId)) - offset, i - offset, wordId);
+                }
+            }
+        }
+        return false;
+    }
+
+    // 同上，扫描 [position, limit)，偏移相对于position
+    boolean scan(ByteBuffer buffer, int policy, BitSet removed, MatchHandler handler) {
+        if (buffer.hasArray()) {
+            return scan(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(),
+                    policy, removed, handler);
+        }
+        final CompiledAutomaton automaton = this.automaton;
+        int state = CompiledAutomaton.ROOT;
+        int offset = buffer.position();
+        for (int i = offset, end = buffer.limit(); i < end; ) {
+            int b = buffer.get(i);
+            int decoded = b >= 0 ? b | 1 << LENGTH_SHIFT : decode(buffer, i, end);
+            int codePoint = decoded & CODE_POINT_MASK;
+            i += decoded >>> LENGTH_SHIFT;
+            int next = advance(state, codePoint);
+            // 可忽略字符不改变状态，跳过以免重复报告上一个字符处的命中
+            if (next == IGNORED) {
+                continue;
+            }
+            state = next;
+            if (automaton.isTerminal(state)) {
+                for (int o = automaton.firstOutput(state); o >= 0; o = automaton.outputLinkAt(o)) {
+                    int wordId = automaton.wordIdAt(o);
+                    if ((automaton.categoriesAt(o) & policy) == 0 || (removed != null && removed.get(wordId))) {
+                        continue;
+                    }
+                    if (handler == null) {
+                        return true;
+                    }
+                    handler.onMatch(startOf(buffer, offset, i, automaton.wordLength(wordId)) - offset, i - offset, wordId);
+                }
+            }
+        }
+        return false;
+    }
+
+    // 按码点的UTF-16单元逐个转移，与字符串扫描相同；字符的全部单元都可忽略时返回IGNORED
+    private int advance(int state, int codePoint) {
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            int cls = automaton.classOf((char) codePoint);
+            return cls == CompiledAutomaton.IGNORED_CLASS ? IGNORED : automaton.nextState(state, cls);
+        }
+        int high = automaton.classOf(Character.highSurrogate(codePoint));
+        int low = automaton.classOf(Character.lowSurrogate(codePoint));
+        if (high == CompiledAutomaton.IGNORED_CLASS && low == CompiledAutomaton.IGNORED_CLASS) {
+            return IGNORED;
+        }
+        return automaton.nextState(automaton.nextState(state, high), low);
+    }
+
+    // 命中在字节end处结束、含length个非忽略UTF-16字符时的起始字节，中间夹杂的可忽略字符一并计入
+    private int startOf(byte[] bytes, int offset, int end, int length) {
+        int start = end;
+        while (length > 0 && start > offset) {
+            int from = start - 1;
+            while (from > offset && start - from < 4 && (bytes[from] & 0xC0) == 0x80) {
+                from--;
+            }
+            int decoded = decode(bytes, from, start);
+            if (from + (decoded >>> LENGTH_SHIFT) != start) {
+                // 不是完整的字符，末字节单独按U+FFFD计
+                from = start - 1;
+                decoded = MALFORMED;
+            }
+            length -= weightOf(decoded & CODE_POINT_MASK);
+            start = from;
+        }
+        return start;
+    }
+
+    private int startOf(ByteBuffer buffer, int offset, int end, int length) {
+        int start = end;
+        while (length > 0 && start > offset) {
+            int from = start - 1;
+            while (from > offset && start - from < 4 && (buffer.get(from) & 0xC0) == 0x80) {
+                from--;
+            }
+            int decoded = decode(buffer, from, start);
+            if (from + (decoded >>> LENGTH_SHIFT) != start) {
+                from = start - 1;
+                decoded = MALFORMED;
+            }
+            length -= weightOf(decoded & CODE_POINT_MASK);
+            start = from;
+        }
+        return start;
+    }
+
+    // 字符中不可忽略的UTF-16单元数，即它在词长中占的长度
+    private int weightOf(int codePoint) {
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            return isIgnored((char) codePoint) ? 0 : 1;
+        }
+        return (isIgnored(Character.highSurrogate(codePoint)) ? 0 : 1)
+                + (isIgnored(Character.lowSurrogate(codePoint)) ? 0 : 1);
+    }
+
+    private boolean isIgnored(char c) {
+        return automaton.classOf(c) == CompiledAutomaton.IGNORED_CLASS;
+    }
+
+    // 解码i处的UTF-8序列；非法序列（截断、过长编码、代理区、超出U+10FFFF）按一个字节的U+FFFD处理
+    static int decode(byte[] bytes, int i, int end) {
+        int b0 = bytes[i] & 0xFF;
+        if (b0 < 0x80) {
+            return b0 | 1 << LENGTH_SHIFT;
+        }
+        if (b0 < 0xC2 || b0 > 0xF4) {
+            return MALFORMED;
+        }
+        if (b0 < 0xE0) {
+            if (i + 1 >= end || !isContinuation(bytes[i + 1])) {
+                return MALFORMED;
+            }
+            return ((b0 & 0x1F) << 6 | bytes[i + 1] & 0x3F) | 2 << LENGTH_SHIFT;
+        }
+        if (b0 < 0xF0) {
+            if (i + 2 >= end || !isContinuation(bytes[i + 1]) || !isContinuation(bytes[i + 2])) {
+                return MALFORMED;
+            }
+            return threeBytes(b0, bytes[i + 1], bytes[i + 2]);
+        }
+        if (i + 3 >= end || !isContinuation(bytes[i + 1]) || !isContinuation(bytes[i + 2])
+                || !isContinuation(bytes[i + 3])) {
+            return MALFORMED;
+        }
+        return fourBytes(b0, bytes[i + 1], bytes[i + 2], bytes[i + 3]);
+    }
+
+    static int decode(ByteBuffer buffer, int i, int end) {
+        int b0 = buffer.get(i) & 0xFF;
+        if (b0 < 0x80) {
+            return b0 | 1 << LENGTH_SHIFT;
+        }
+        if (b0 < 0xC2 || b0 > 0xF4) {
+            return MALFORMED;
+        }
+        if (b0 < 0xE0) {
+            if (i + 1 >= end || !isContinuation(buffer.get(i + 1))) {
+                return MALFORMED;
+            }
+            return ((b0 & 0x1F) << 6 | buffer.get(i + 1) & 0x3F) | 2 << LENGTH_SHIFT;
+        }
+        if (b0 < 0xF0) {
+            if (i + 2 >= end || !isContinuation(buffer.get(i + 1)) || !isContinuation(buffer.get(i + 2))) {
+                return MALFORMED;
+            }
+            return threeBytes(b0, buffer.get(i + 1), buffer.get(i + 2));
+        }
+        if (i + 3 >= end || !isContinuation(buffer.get(i + 1)) || !isContinuation(buffer.get(i + 2))
+                || !isContinuation(buffer.get(i + 3))) {
+            return MALFORMED;
+        }
+        return fourBytes(b0, buffer.get(i + 1), buffer.get(i + 2), buffer.get(i + 3));
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    private static int threeBytes(int b0, byte b1, byte b2) {
+        int codePoint = (b0 & 0x0F) << 12 | (b1 & 0x3F) << 6 | b2 & 0x3F;
+        if (codePoint < 0x800 || Character.isSurrogate((char) codePoint)) {
+            return MALFORMED;
+        }
+        return codePoint | 3 << LENGTH_SHIFT;
+    }
+
+    private static int fourBytes(int b0, byte b1, byte b2, byte b3) {
+        int codePoint = (b0 & 0x07) << 18 | (b1 & 0x3F) << 12 | (b2 & 0x3F) << 6 | b3 & 0x3F;
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT || codePoint > Character.MAX_CODE_POINT) {
+            return MALFORMED;
+        }
+        return codePoint | 4 << LENGTH_SHIFT;
+    }
+
+    public CompiledAutomaton getAutomaton() {
+        return automaton;
+    }
+}
@@ -0,0 +1,73 @@
+package com.sensitivewords.utils;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+// 敏感词分类：每个分类占掩码中的一位，一个词可以同时属于多个分类
+// 编译后的自动机在每个输出状态上保存分类掩码，扫描时与调用方的策略掩码做一次按位与即可判断，
+// 同一次扫描可以服务使用不同分类组合的多个租户
+// resources为随项目打包的分类词库
+public enum WordCategory {
+    GENERAL("综合", "dic/sensitiveWordsDic.dic"),
+    PORN("色情", "dic/色情类.txt", "dic/色情词库.txt"),
+    POLITICS("政治", "dic/政治类.txt", "dic/反动词库.txt"),
+    ADVERTISING("广告", "dic/广告.txt"),
+    URL("网址", "dic/网址.txt"),
+    VIOLENCE("暴恐", "dic/暴恐词库.txt", "dic/涉枪涉爆违法信息关键词.txt"),
+    CORRUPTION("贪腐", "dic/贪腐词库.txt"),
+    LIVELIHOOD("民生", "dic/民生词库.txt"),
+    OTHER("其他", "dic/其他词库.txt");
+
+    // 全部分类
+    public static final int ALL = -1;
+
+    private final String label;
+    private final String[] resources;
+
+    WordCategory(String label, String... resources) {
+        this.label = label;
+        this.resources = resources;
+    }
+
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    String[] getResources() {
+        return resources;
+    }
+
+    public static int maskOf(Collection<WordCategory> categories) {
+        int mask = 0;
+        for (WordCategory category : categories) {
+            mask |= category.mask();
+        }
+        return mask;
+    }
+
+    // 掩码中包含的分类
+    public static Set<WordCategory> setOf(int mask) {
+        Set<WordCategory> categories = EnumSet.noneOf(WordCategory.class);
+        for (WordCategory category : values()) {
+            if ((mask & category.mask()) != 0) {
+                categories.add(category);
+            }
+        }
+        return categories;
+    }
+
+    // 按请求参数解析，支持枚举名（不区分大小写）或中文名
+    public static WordCategory of(String value) {
+        for (WordCategory category : values()) {
+            if (category.name().equalsIgnoreCase(value) || category.label.equals(value)) {
+                return category;
+            }
+        }
+        throw new IllegalArgumentException("不支持的敏感词分类: " + value);
+    }
+}
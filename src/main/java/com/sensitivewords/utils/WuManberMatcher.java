@@ -0,0 +1,206 @@
+package com.sensitivewords.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Wu-Manber多模式匹配：以最短敏感词长度m为窗口，每次只看窗口末尾的B个字符（块），
+// 块不出现在任何词的前m个字符中时整窗跳过 m - B + 1 个字符，否则按块在词中的最右位置跳转；
+// 跳转距离为0时才按块的哈希桶逐个校验候选词
+// 词都较长时（网址、长广告语）平均每次跳过多个字符，比逐字符走转移表的AC自动机读的字符少；
+// 词典中有单字词时退化为逐字符校验，应使用AC自动机
+// 按原文精确匹配，不做字符归一化；命中按起点递增的顺序报告，同一起点的命中顺序不定
+public final class WuManberMatcher implements SensitiveWordMatcher {
+    // 块哈希表大小
+    private static final int TABLE_BITS = 15;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+
+    // 下标即wordId
+    private final List<String> words;
+    private final char[][] patterns;
+    // 最短敏感词长度，0表示词表为空
+    private final int minLength;
+    // 块长度：最短词长度不小于2时为2，否则为1
+    private final int blockSize;
+    // 块哈希 -> 跳转距离
+    private final int[] shift;
+    // 块哈希 -> 以该块结束前m个字符的词（CSR布局），同时保存每个词前两个字符，校验前先比较
+    private final int[] bucketOffsets;
+    private final int[] bucketWords;
+    private final int[] bucketPrefixes;
+
+    private WuManberMatcher(List<String> words, char[][] patterns, int minLength, int blockSize, int[] shift,
+                            int[] bucketOffsets, int[] bucketWords, int[] bucketPrefixes) {
+        this.words = words;
+        this.patterns = patterns;
+        this.minLength = minLength;
+        this.blockSize = blockSize;
+        this.shift = shift;
+        this.bucketOffsets = bucketOffsets;
+        this.bucketWords = bucketWords;
+        this.bucketPrefixes = bucketPrefixes;
+    }
+
+    // 空词不参与匹配，但仍占用wordId
+    public static WuManberMatcher build(Collection<String> words) {
+        List<String> wordList = Collections.unmodifiableList(new ArrayList<>(words));
+        char[][] patterns = new char[wordList.size()][];
+        int minLength = Integer.MAX_VALUE;
+        for (int wordId = 0; wordId < patterns.length; wordId++) {
+            String word = wordList.get(wordId);
+            if (word != null && !word.isEmpty()) {
+                patterns[wordId] = word.toCharArray();
+                minLength = Math.min(minLength, word.length());
+            }
+        }
+        if (minLength == Integer.MAX_VALUE) {
+            minLength = 0;
+        }
+        int blockSize = minLength >= 2 ? 2 : 1;
+
+        // 1. 跳转表：块在某个词前m个字符中以位置j结尾时，窗口最多只能右移 m - 1 - j
+        int[] shift = new int[TABLE_SIZE];
+        Arrays.fill(shift, Math.max(minLength - blockSize + 1, 0));
+        int[] bucketSizes = new int[TABLE_SIZE];
+        for (char[] pattern : patterns) {
+            if (pattern == null) {
+                continue;
+            }
+            for (int j = blockSize - 1; j < minLength; j++) {
+                int h = hash(pattern, j, blockSize);
+                shift[h] = Math.min(shift[h], minLength - 1 - j);
+            }
+            bucketSizes[hash(pattern, minLength - 1, blockSize)]++;
+        }
+
+        // 2. 哈希桶：按前m个字符的最后一块分桶
+        int[] bucketOffsets = new int[TABLE_SIZE + 1];
+        for (int h = 0; h < TABLE_SIZE; h++) {
+            bucketOffsets[h + 1] = bucketOffsets[h] + bucketSizes[h];
+        }
+        int[] bucketWords = new int[bucketOffsets[TABLE_SIZE]];
+        int[] bucketPrefixes = new int[bucketWords.length];
+        int[] fill = Arrays.copyOf(bucketOffsets, TABLE_SIZE);
+        for (int wordId = 0; wordId < patterns.length; wordId++) {
+            char[] pattern = patterns[wordId];
+            if (pattern == null) {
+                continue;
+            }
+            int k = fill[hash(pattern, minLength - 1, blockSize)]++;
+            bucketWords[k] = wordId;
+            bucketPrefixes[k] = minLength >= 2 ? (pattern[0] << 16) | pattern[1] : pattern[0];
+        }
+        return new WuManberMatcher(wordList, patterns, minLength, blockSize, shift,
+                bucketOffsets, bucketWords, bucketPrefixes);
+    }
+
+    // 以end结尾、长度为blockSize的块的哈希
+    private static int hash(char[] chars, int end, int blockSize) {
+        return hash(blockSize == 2 ? chars[end - 1] : 0, chars[end]);
+    }
+
+    private static int hash(int previous, int current) {
+        return (((previous << 16) | current) * 0x9E3779B1) >>> (Integer.SIZE - TABLE_BITS);
+    }
+
+    @Override
+    public boolean containsSensitiveWords(CharSequence text) {
+        return text != null && scan(text, null);
+    }
+
+    @Override
+    public void forEachMatch(CharSequence text, MatchHandler handler) {
+        if (text != null) {
+            scan(text, handler);
+        }
+    }
+
+    // handler为null时遇到第一个命中即返回true
+    private boolean scan(CharSequence text, MatchHandler handler) {
+        final int m = minLength;
+        final int length = text.length();
+        if (m == 0 || length < m) {
+            return false;
+        }
+        final int[] shift = this.shift;
+        final boolean pairBlock = blockSize == 2;
+        int pos = m - 1;
+        while (pos < length) {
+            int h = hash(pairBlock ? text.charAt(pos - 1) : 0, text.charAt(pos));
+            int distance = shift[h];
+            if (distance > 0) {
+                pos += distance;
+                continue;
+            }
+            // 窗口末块与某些词的前m个字符的末块相同，逐个校验这些词
+            int start = pos - m + 1;
+            int prefix = pairBlock ? (text.charAt(start) << 16) | text.charAt(start + 1) : text.charAt(start);
+            for (int k = bucketOffsets[h], end = bucketOffsets[h + 1]; k < end; k++) {
+                if (bucketPrefixes[k] != prefix) {
+                    continue;
+                }
+                int wordId = bucketWords[k];
+                char[] pattern = patterns[wordId];
+                if (regionMatches(text, start, pattern)) {
+                    if (handler == null) {
+                        return true;
+                    }
+                    handler.onMatch(start, start + pattern.length, wordId);
+                }
+            }
+            pos++;
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(CharSequence text, int start, char[] pattern) {
+        if (start + pattern.length > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (text.charAt(start + i) != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 匹配全部敏感词，按起点顺序返回
+    public List<String> matchAllSensitiveWords(String text) {
+        List<String> matches = new ArrayList<>();
+        forEachMatch(text, (start, end, wordId) -> matches.add(words.get(wordId)));
+        return matches;
+    }
+
+    public String mask(String text, char maskChar) {
+        return mask(text, maskChar, MatchKind.STANDARD);
+    }
+
+    // 按指定匹配语义替换敏感词，没有命中时返回原字符串
+    public String mask(String text, char maskChar, MatchKind kind) {
+        if (text == null || text.isEmpty() || !scan(text, null)) {
+            return text;
+        }
+        MatchBuffer buffer = new MatchBuffer();
+        scan(text, buffer);
+        // 筛选与合并要求命中按结束位置排列
+        buffer.sortByEnd();
+        buffer.select(kind);
+        return buffer.mask(text, maskChar);
+    }
+
+    @Override
+    public String getWord(int wordId) {
+        return words.get(wordId);
+    }
+
+    public List<String> getWords() {
+        return words;
+    }
+
+    public int getMinWordLength() {
+        return minLength;
+    }
+}
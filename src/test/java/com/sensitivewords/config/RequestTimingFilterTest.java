@@ -0,0 +1,115 @@
+package com.sensitivewords.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sensitivewords.controller.FilterController;
+import com.sensitivewords.utils.AhoCorasickAutomaton;
+import com.sensitivewords.utils.LatencyHistogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class RequestTimingFilterTest {
+    private static AhoCorasickAutomaton automaton;
+    private static ExecutorService executor;
+
+    @BeforeAll
+    public static void setup() {
+        automaton = new AhoCorasickAutomaton();
+        automaton.addSensitiveWords(Arrays.asList("敏感词", "测试"));
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        executor.shutdown();
+        automaton.shutdown();
+    }
+
+    @Test
+    public void testStagesAndServerTiming() throws Exception {
+        RequestTimingMetrics metrics = new RequestTimingMetrics();
+        MockMvc mockMvc = MockMvcBuilders
+                .standaloneSetup(new FilterController(automaton, executor, new ObjectMapper()))
+                .setControllerAdvice(new RequestProfileAdvice())
+                .addFilters(new RequestTimingFilter(metrics))
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/filter").param("mode", "mask").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"content\":\"这是敏感词\"}"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json("{\"masked\":\"这是***\"}", true))
+                    .andExpect(header().string("Server-Timing",
+                            matchesPattern("(read;dur=\\d+\\.\\d{3}, )?decode;dur=\\d+\\.\\d{3}, "
+                                    + "scan;dur=\\d+\\.\\d{3}, app;dur=\\d+\\.\\d{3}")));
+        }
+
+        Map<String, LatencyHistogram.Summary> summary = metrics.summarize();
+        assertEquals(3, summary.get("total").count);
+        assertEquals(3, summary.get("decode").count);
+        assertEquals(3, summary.get("scan").count);
+        assertEquals(3, summary.get("serialize").count);
+    }
+
+    @Test
+    public void testProfileFormatting() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestProfile profile = RequestProfile.start(request);
+        assertSame(profile, RequestProfile.of(request));
+        profile.add(RequestProfile.Stage.READ, 1_500_000);
+        // 解析阶段的计时包含读取
+        profile.add(RequestProfile.Stage.DECODE, 2_000_000);
+        profile.add(RequestProfile.Stage.SCAN, 12_345_678);
+        assertEquals(500_000, profile.getNanos(RequestProfile.Stage.DECODE));
+        assertTrue(profile.toServerTiming().startsWith("read;dur=1.500, decode;dur=0.500, scan;dur=12.345, app;dur="));
+        assertTrue(profile.toString().startsWith("read=1.500ms decode=0.500ms scan=12.345ms serialize=0.000ms total="));
+
+        // 未经过过滤器的请求得到独立的记录
+        assertNotSame(RequestProfile.of(new MockHttpServletRequest()), RequestProfile.of(new MockHttpServletRequest()));
+    }
+
+    @Test
+    public void testServerTimingTrailer() {
+        RequestProfile profile = RequestProfile.start(new MockHttpServletRequest());
+        AtomicReference<Supplier<Map<String, String>>> trailer = new AtomicReference<>();
+        MockHttpServletResponse response = new MockHttpServletResponse() {
+            @Override
+            public void setTrailerFields(Supplier<Map<String, String>> supplier) {
+                trailer.set(supplier);
+            }
+        };
+        profile.sendServerTimingAsTrailer(response);
+        assertEquals("Server-Timing", response.getHeader("Trailer"));
+
+        // trailer在响应结束时才取值，包含之后累加的耗时
+        profile.add(RequestProfile.Stage.SCAN, 2_000_000);
+        assertTrue(trailer.get().get().get("Server-Timing").startsWith("scan;dur=2.000, app;dur="));
+
+        // 不支持trailer的响应不声明Trailer头
+        MockHttpServletResponse unsupported = new MockHttpServletResponse() {
+            @Override
+            public void setTrailerFields(Supplier<Map<String, String>> supplier) {
+                throw new IllegalStateException();
+            }
+        };
+        profile.sendServerTimingAsTrailer(unsupported);
+        assertNull(unsupported.getHeader("Trailer"));
+    }
+}
@@ -0,0 +1,152 @@
+package com.sensitivewords.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sensitivewords.utils.AhoCorasickAutomaton;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class FilterControllerTest {
+    private static AhoCorasickAutomaton automaton;
+    private static ExecutorService executor;
+    private static MockMvc mockMvc;
+
+    @BeforeAll
+    public static void setup() {
+        automaton = new AhoCorasickAutomaton();
+        automaton.addSensitiveWords(Arrays.asList("敏感词", "感词", "测试"));
+        executor = Executors.newFixedThreadPool(2);
+        mockMvc = MockMvcBuilders.standaloneSetup(new FilterController(automaton, executor, new ObjectMapper())).build();
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        executor.shutdown();
+        automaton.shutdown();
+    }
+
+    @Test
+    public void testSingleTextModes() throws Exception {
+        String body = "{\"content\":\"这是敏感词\"}";
+        mockMvc.perform(post("/filter").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"contains\":true}", true));
+        mockMvc.perform(post("/filter").param("mode", "mask").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(content().json("{\"masked\":\"这是***\"}", true));
+        mockMvc.perform(post("/filter").param("mode", "unknown").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testBatchKeepsInputOrderAcrossChunks() throws Exception {
+        // 超过一个块，且块数超过在途上限
+        int count = 1000;
+        StringBuilder body = new StringBuilder("[");
+        StringBuilder expected = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            String text = i % 3 == 0 ? "第" + i + "条测试" : "第" + i + "条";
+            String masked = i % 3 == 0 ? "第" + i + "条**" : text;
+            body.append(i == 0 ? "" : ",").append('"').append(text).append('"');
+            expected.append(i == 0 ? "" : ",").append("{\"masked\":\"").append(masked).append("\"}");
+        }
+        body.append(']');
+        expected.append(']');
+
+        MvcResult result = mockMvc.perform(post("/filter/batch").param("mode", "mask")
+                        .contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        JSONAssert.assertEquals(expected.toString(), response, true);
+    }
+
+    @Test
+    public void testBatchRejectsNonArrayBeforeStreaming() throws Exception {
+        // 第一个token在返回响应体之前检查，不进入异步处理
+        mockMvc.perform(post("/filter/batch").contentType(MediaType.APPLICATION_JSON).content("{\"content\":\"测试\"}"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/filter/batch").contentType(MediaType.APPLICATION_JSON).content("not json"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testBatchFailureAfterStreamingEndsWithErrorMarker() throws Exception {
+        // 五个完整的块之后遇到非法元素，此时第一块结果已经写出
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 320; i++) {
+            body.append("\"测试\",");
+        }
+        body.append("1]");
+        MvcResult result = mockMvc.perform(post("/filter/batch")
+                        .contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        JsonNode array = new ObjectMapper().readTree(response);
+        assertTrue(array.size() > 1 && array.size() <= 321);
+        assertTrue(array.get(0).get("contains").asBoolean());
+        assertEquals("数组元素必须是字符串", array.get(array.size() - 1).get("error").asText());
+    }
+
+    @Test
+    public void testBatchCancelsPendingChunksOnFailure() throws Exception {
+        // 单线程线程池被占住，提交的块都在排队
+        ThreadPoolExecutor blocked = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        CountDownLatch release = new CountDownLatch(1);
+        blocked.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            MockMvc blockedMvc = MockMvcBuilders
+                    .standaloneSetup(new FilterController(automaton, blocked, new ObjectMapper())).build();
+            // 两个完整的块之后遇到非法元素
+            StringBuilder body = new StringBuilder("[");
+            for (int i = 0; i < 128; i++) {
+                body.append("\"测试\",");
+            }
+            body.append("1]");
+            MvcResult result = blockedMvc.perform(post("/filter/batch")
+                            .contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            blockedMvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest());
+
+            blocked.purge();
+            assertEquals(0, blocked.getQueue().size());
+        } finally {
+            release.countDown();
+            blocked.shutdown();
+        }
+    }
+}
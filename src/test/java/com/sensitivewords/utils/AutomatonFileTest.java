@@ -0,0 +1,68 @@
+package com.sensitivewords.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AutomatonFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<String> collect(AutomatonSnapshot snapshot, String text) {
+        List<String> matches = new ArrayList<>();
+        StreamScanner scanner = snapshot.newStreamScanner(
+                (start, end, wordId) -> matches.add(start + "-" + end + ":" + snapshot.getSensitiveWord(wordId)));
+        scanner.feed(text.toCharArray(), 0, text.length());
+        return matches;
+    }
+
+    @Test
+    public void testMappedSnapshotMatchesBuiltSnapshot() throws Exception {
+        List<String> words = Arrays.asList("敏感词", "感词", "abc", "bc", "测试");
+        AutomatonSnapshot built = AutomatonSnapshot.builder().addWords(words.subList(0, 4))
+                .addWord(words.get(4), WordCategory.ADVERTISING.mask() | WordCategory.URL.mask())
+                .build();
+        Path file = tempDir.resolve("automaton.bin");
+        int[] categories = new int[words.size()];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = built.getWordCategories(i);
+        }
+        long fingerprint = AutomatonFile.fingerprint(words, categories);
+        AutomatonFile.write(built, fingerprint, file);
+
+        assertEquals(fingerprint, AutomatonFile.readFingerprint(file));
+        // 归一化规则不同（如t2s.txt更新）时指纹不同，旧文件不会被当作当前词典的编译结果
+        assertEquals(fingerprint, AutomatonFile.fingerprint(words, categories, CharNormalizer.standard()));
+        assertNotEquals(fingerprint, AutomatonFile.fingerprint(words, categories, CharNormalizer.NONE));
+        AutomatonSnapshot loaded = AutomatonFile.load(file);
+        assertEquals(words, loaded.getWords());
+        assertEquals(built.getAutomaton().getStateCount(), loaded.getAutomaton().getStateCount());
+
+        String text = "这是一段敏感词测试，xabcd";
+        assertTrue(loaded.containsSensitiveWords(text));
+        assertFalse(loaded.containsSensitiveWords("正常文本"));
+        assertEquals(collect(built, text), collect(loaded, text));
+        assertEquals(WordCategory.ADVERTISING.mask(), loaded.hitCategories(text, WordCategory.ADVERTISING.mask()));
+        assertEquals(WordCategory.URL.mask() | WordCategory.ADVERTISING.mask(), loaded.getWordCategories(4));
+    }
+
+    @Test
+    public void testCorruptedFileIsRejected() throws Exception {
+        AutomatonSnapshot built = AutomatonSnapshot.builder().addWords(Arrays.asList("敏感词", "abc")).build();
+        Path file = tempDir.resolve("automaton.bin");
+        AutomatonFile.write(built, 0L, file);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+        assertThrows(IllegalStateException.class, () -> AutomatonFile.load(file));
+    }
+}
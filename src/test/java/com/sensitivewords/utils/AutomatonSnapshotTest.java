@@ -0,0 +1,417 @@
+package com.sensitivewords.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AutomatonSnapshotTest {
+
+    @Test
+    public void testPublishedSnapshotIsNotAffectedByLaterBuilds() {
+        AutomatonSnapshot v0 = AutomatonSnapshot.builder()
+                .addWords(Arrays.asList("敏感", "测试词"))
+                .build();
+        AutomatonSnapshot v1 = v0.toBuilder().addWord("新词").build();
+
+        assertEquals(v0.getVersion() + 1, v1.getVersion());
+        assertFalse(v0.containsSensitiveWords("这是新词"));
+        assertTrue(v1.containsSensitiveWords("这是新词"));
+        assertTrue(v1.containsSensitiveWords("一个测试词"));
+        assertEquals(2, v0.size());
+        assertEquals(3, v1.size());
+        assertEquals(List.of("新词"), v1.matchAllSensitiveWords("这是新词"));
+    }
+
+    @Test
+    public void testNormalizedVariantsMatch() {
+        AutomatonSnapshot snapshot = AutomatonSnapshot.builder()
+                .addWords(Arrays.asList("火车票", "Free Money", "敏感词"))
+                .build();
+
+        // 繁体、全角、大小写、标点和空白
+        assertTrue(snapshot.containsSensitiveWords("買火車票"));
+        assertTrue(snapshot.containsSensitiveWords("ＦＲＥＥ　ｍｏｎｅｙ"));
+        assertTrue(snapshot.containsSensitiveWords("敏，感。词"));
+        assertFalse(snapshot.containsSensitiveWords("敏感的词"));
+        assertEquals(List.of("敏感词", "火车票"), snapshot.matchAllSensitiveWords("敏-感-词 和 火車票"));
+
+        // 替换覆盖原文中的整个区间，包括夹在中间的可忽略字符，其余字符保持原样
+        assertEquals("前*****后", snapshot.mask("前敏，感。词后", '*'));
+        assertEquals("[***********!]", snapshot.mask("[FREE, money!]", '*'));
+    }
+
+    @Test
+    public void testMatchKinds() {
+        AutomatonSnapshot snapshot = AutomatonSnapshot.builder()
+                .addWords(Arrays.asList("ab", "abcd", "bcd", "c"))
+                .build();
+        String text = "xabcdx";
+
+        assertEquals(List.of("ab", "c", "abcd", "bcd"), snapshot.matchAllSensitiveWords(text, MatchKind.STANDARD));
+        assertEquals(List.of("abcd"), snapshot.matchAllSensitiveWords(text, MatchKind.LEFTMOST_LONGEST));
+        assertEquals(List.of("ab", "c"), snapshot.matchAllSensitiveWords(text, MatchKind.LEFTMOST_FIRST));
+
+        assertEquals("x****x", snapshot.mask(text, '*'));
+        assertEquals("x****x", snapshot.mask(text, '*', MatchKind.LEFTMOST_LONGEST));
+        assertEquals("x***dx", snapshot.mask(text, '*', MatchKind.LEFTMOST_FIRST));
+        // 没有命中时返回原字符串
+        String clean = "xyz";
+        assertSame(clean, snapshot.mask(clean, '*'));
+    }
+
+    @Test
+    public void testLeftmostFirstKeepsDictionaryOrder() {
+        MatchCollector collector = new MatchCollector(4);
+        // 归一化后重复的词保留最先添加的wordId，abc排在ab之前
+        AutomatonSnapshot snapshot = AutomatonSnapshot.builder().addWords(Arrays.asList("abc", "ab", "ABC")).build();
+        assertEquals(1, snapshot.collectMatches("abcd", MatchKind.LEFTMOST_FIRST, collector));
+        assertEquals(0, collector.wordId(0));
+
+        // 修改分类不改变词的先后，合并前后一致；新词排在已有词之后
+        AutomatonSnapshot edited = snapshot.withWord("ＡＢＣ", WordCategory.ADVERTISING.mask()).withWord("a", WordCategory.GENERAL.mask());
+        AutomatonSnapshot merged = edited.merge();
+        for (AutomatonSnapshot s : Arrays.asList(edited, merged)) {
+            assertEquals(1, s.collectMatches("abcd", MatchKind.LEFTMOST_FIRST, collector));
+            assertEquals(3, collector.end(0));
+            assertEquals("ＡＢＣ", s.getWord(collector.wordId(0)));
+        }
+        assertEquals(Arrays.asList("ＡＢＣ", "ab", "a"), merged.getWords());
+        assertEquals(WordCategory.GENERAL.mask() | WordCategory.ADVERTISING.mask(), merged.getWordCategories(0));
+
+        // 删除后再用LEFTMOST_FIRST，ab在a之前
+        AutomatonSnapshot removed = edited.withoutWord("abc");
+        for (AutomatonSnapshot s : Arrays.asList(removed, removed.merge())) {
+            assertEquals(1, s.collectMatches("abcd", MatchKind.LEFTMOST_FIRST, collector));
+            assertEquals("ab", s.getWord(collector.wordId(0)));
+        }
+    }
+
+    @Test
+    public void testCategoryPolicies() {
+        int porn = WordCategory.PORN.mask();
+        int ads = WordCategory.ADVERTISING.mask();
+        int url = WordCategory.URL.mask();
+        AutomatonSnapshot snapshot = AutomatonSnapshot.builder()
+                .addWord("加微信", ads)
+                .addWord("example.com", url)
+                .addWord("色情", porn)
+                // 同一个词出现在两个分类词库中
+                .addWord("色情网站", porn)
+                .addWord("色情网站", url)
+                .build();
+        String text = "色情网站请加微信";
+
+        assertTrue(snapshot.containsSensitiveWords(text, url));
+        assertFalse(snapshot.containsSensitiveWords(text, WordCategory.POLITICS.mask()));
+        assertEquals(porn | ads | url, snapshot.hitCategories(text, WordCategory.ALL));
+        assertEquals(ads, snapshot.hitCategories("请加微信", porn | ads));
+
+        Map<WordCategory, List<String>> byCategory = snapshot.matchByCategory("色情网站，请加微信", porn | url);
+        assertEquals(List.of("色情", "色情网站"), byCategory.get(WordCategory.PORN));
+        assertEquals(1, byCategory.get(WordCategory.URL).size());
+        assertFalse(byCategory.containsKey(WordCategory.ADVERTISING));
+
+        assertEquals("色情网站请***", snapshot.mask(text, '*', MatchKind.STANDARD, ads));
+        assertEquals("****请加微信", snapshot.mask(text, '*', MatchKind.STANDARD, url));
+        assertThrows(IllegalArgumentException.class, () -> AutomatonSnapshot.builder().addWord("词", 0));
+    }
+
+    @Test
+    public void testMaskIntoCallerBuffers() {
+        AutomatonSnapshot snapshot = AutomatonSnapshot.builder()
+                .addWords(Arrays.asList("ab", "bcd", "xy"))
+                .build();
+        MaskRanges ranges = new MaskRanges();
+        char[] out = new char[16];
+        Arrays.fill(out, '#');
+
+        assertEquals(2, snapshot.maskInto("abcdqxy", '*', MatchKind.STANDARD, out, 2, ranges));
+        assertEquals("##****q**#", new String(out, 0, 10));
+        assertEquals(0, ranges.start(0));
+        assertEquals(4, ranges.end(0));
+        assertEquals(5, ranges.start(1));
+        assertEquals(7, ranges.end(1));
+
+        // 未命中时不写入缓冲区，区间被清空
+        CharBuffer buffer = CharBuffer.allocate(8);
+        assertEquals(0, snapshot.maskInto("qqq", '*', MatchKind.STANDARD, buffer, ranges));
+        assertEquals(0, ranges.size());
+        assertEquals(0, buffer.position());
+
+        assertEquals(1, snapshot.maskInto("qxyq", '*', MatchKind.STANDARD, buffer, ranges));
+        buffer.flip();
+        assertEquals("q**q", buffer.toString());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> snapshot.maskInto("abcdqxy", '*', MatchKind.STANDARD, new char[4], 0, ranges));
+    }
+
+    @Test
+    public void testDeltaEditsAndMerge() throws Exception {
+        AutomatonSnapshot base = AutomatonSnapshot.builder()
+                .addWords(Arrays.asList("敏感词", "感词", "测试"))
+                .addWord("赌博", WordCategory.VIOLENCE.mask())
+                .build();
+        AutomatonSnapshot edited = base.withWord("新词", WordCategory.GENERAL.mask())
+                .withoutWord("感词")
+                .withWord("赌博", WordCategory.ADVERTISING.mask())
+                .withoutWord("不存在的词");
+
+        assertEquals(4, edited.getPendingEdits());
+        assertEquals(base.getVersion() + 4, edited.getVersion());
+        assertTrue(base.containsSensitiveWords("这里有感词"));
+        assertFalse(edited.containsSensitiveWords("这里有感词"));
+        assertTrue(edited.containsSensitiveWords("一个新词"));
+        assertEquals(List.of("敏感词", "新词"), edited.matchAllSensitiveWords("敏感词和新词"));
+        assertEquals("***和**", edited.mask("敏感词和新词", '*'));
+        // 覆盖基础层的词时分类合并
+        int policy = WordCategory.VIOLENCE.mask() | WordCategory.ADVERTISING.mask();
+        assertEquals(policy, edited.hitCategories("网上赌博", WordCategory.ALL) & policy);
+        assertEquals(List.of("赌博"), edited.matchByCategory("网上赌博", policy).get(WordCategory.VIOLENCE));
+
+        byte[] utf8 = "有新词也有感词".getBytes(StandardCharsets.UTF_8);
+        assertTrue(edited.containsSensitiveWords(utf8, 0, utf8.length));
+        assertFalse(edited.withoutWord("新词").containsSensitiveWords(utf8, 0, utf8.length));
+
+        List<String> streamed = new ArrayList<>();
+        edited.newStreamScanner((start, end, wordId) -> streamed.add(start + ":" + edited.getWord(wordId)))
+                .scan(new StringReader("敏感词和新词"));
+        assertEquals(List.of("0:敏感词", "4:新词"), streamed);
+
+        AutomatonSnapshot merged = edited.merge();
+        assertEquals(0, merged.getPendingEdits());
+        for (String text : Arrays.asList("敏感词和新词", "这里有感词", "网上赌博测试")) {
+            assertEquals(edited.matchAllSensitiveWords(text), merged.matchAllSensitiveWords(text), text);
+            assertEquals(edited.hitCategories(text, WordCategory.ALL), merged.hitCategories(text, WordCategory.ALL), text);
+        }
+        assertSame(base, base.withoutWords(List.of("")));
+    }
+
+    @Test
+    public void testBackgroundMergeKeepsLaterEdits() {
+        AhoCorasickAutomaton automaton = new AhoCorasickAutomaton();
+        automaton.addSensitiveWords(Arrays.asList("基础词", "旧词"));
+        automaton.mergeDelta();
+        assertEquals(0, automaton.getSnapshot().getPendingEdits());
+
+        automaton.addSensitiveWord("新词");
+        AutomatonSnapshot from = automaton.getSnapshot();
+        AutomatonSnapshot merged = from.merge();
+        // 合并期间又有编辑，发布时重放到新基础层上
+        automaton.removeSensitiveWord("旧词");
+        AutomatonSnapshot rebased = automaton.getSnapshot().rebase(merged, from);
+        automaton.mergeDelta();
+        automaton.shutdown();
+
+        for (AutomatonSnapshot snapshot : Arrays.asList(rebased, automaton.getSnapshot())) {
+            assertTrue(snapshot.containsSensitiveWords("新词"));
+            assertTrue(snapshot.containsSensitiveWords("基础词"));
+            assertFalse(snapshot.containsSensitiveWords("旧词"));
+        }
+        assertEquals(1, rebased.getPendingEdits());
+        assertEquals(0, automaton.getSnapshot().getPendingEdits());
+    }
+
+    @Test
+    public void testOffHeapSnapshot() {
+        AutomatonSnapshot heap = AutomatonSnapshot.builder()
+                .addWords(Arrays.asList("敏感词", "感词", "测试", "example.com"))
+                .addWord("赌博", WordCategory.VIOLENCE.mask())
+                .build();
+        AutomatonSnapshot offHeap = heap.toOffHeap();
+        assertTrue(offHeap.isOffHeap());
+        assertFalse(heap.isOffHeap());
+        assertTrue(offHeap.getOffHeapStorage().getBytes() > 0);
+        for (String text : Arrays.asList("这是敏感词", "访问 Example.COM 测试", "网上赌博", "没有命中")) {
+            assertEquals(heap.matchAllSensitiveWords(text), offHeap.matchAllSensitiveWords(text), text);
+            assertEquals(heap.mask(text, '*'), offHeap.mask(text, '*'), text);
+            assertEquals(heap.hitCategories(text, WordCategory.ALL), offHeap.hitCategories(text, WordCategory.ALL), text);
+        }
+
+        // 仍有读线程pin住时release()不释放内存，最后一个unpin()后释放
+        assertTrue(offHeap.pin());
+        offHeap.release();
+        assertFalse(offHeap.getOffHeapStorage().isFreed());
+        assertTrue(offHeap.containsSensitiveWords("敏感词"));
+        offHeap.unpin();
+        assertTrue(offHeap.getOffHeapStorage().isFreed());
+        assertFalse(offHeap.pin());
+        assertThrows(IllegalStateException.class, () -> heap.withWord("新词", 1).toOffHeap());
+    }
+
+    // 引用计数：重复release()不会多减一次，release()之后即使仍有pin也不能再pin
+    @Test
+    public void testOffHeapReferenceCount() throws Exception {
+        AutomatonSnapshot offHeap = AutomatonSnapshot.builder().addWord("敏感词").build().toOffHeap();
+        OffHeapStorage storage = offHeap.getOffHeapStorage();
+        assertTrue(offHeap.pin());
+        assertTrue(offHeap.pin());
+        offHeap.release();
+        offHeap.release();
+        assertFalse(offHeap.pin());
+        offHeap.unpin();
+        assertFalse(storage.isFreed());
+        assertTrue(offHeap.containsSensitiveWords("敏感词"));
+        offHeap.unpin();
+        assertTrue(storage.isFreed());
+        assertThrows(IllegalStateException.class, offHeap::unpin);
+
+        // 读线程反复pin/unpin时释放：只有在没有读线程持有pin时才真正释放
+        AutomatonSnapshot shared = AutomatonSnapshot.builder().addWord("敏感词").build().toOffHeap();
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                while (shared.pin()) {
+                    holders.incrementAndGet();
+                    if (shared.getOffHeapStorage().isFreed() || !shared.containsSensitiveWords("敏感词")) {
+                        failures.incrementAndGet();
+                    }
+                    holders.decrementAndGet();
+                    shared.unpin();
+                }
+            });
+            readers[t].start();
+        }
+        Thread.sleep(20);
+        shared.release();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(0, failures.get());
+        assertEquals(0, holders.get());
+        assertTrue(shared.getOffHeapStorage().isFreed());
+    }
+
+    @Test
+    public void testEveryEntryPointRecordsMetrics() throws Exception {
+        AhoCorasickAutomaton automaton = new AhoCorasickAutomaton();
+        automaton.addSensitiveWord("敏感词");
+        String text = "一段敏感词";
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        int policy = WordCategory.ALL;
+        automaton.containsSensitiveWords(text, policy);
+        automaton.hitCategories(text, policy);
+        automaton.containsSensitiveWords(utf8, 0, utf8.length);
+        automaton.containsSensitiveWords(ByteBuffer.wrap(utf8));
+        automaton.matchByCategory(text, policy);
+        automaton.forEachMatch(ByteBuffer.wrap(utf8), (start, end, wordId) -> { });
+        automaton.scan(new StringReader(text), (start, end, word) -> { });
+        automaton.mask(text, '*', MatchKind.STANDARD, policy);
+        automaton.maskInto(text, '*', MatchKind.STANDARD, new char[text.length()], 0, new MaskRanges());
+        automaton.maskInto(text, '*', MatchKind.STANDARD, CharBuffer.allocate(text.length()), new MaskRanges());
+        automaton.shutdown();
+
+        ScanMetrics metrics = automaton.getMetrics();
+        assertEquals(4, metrics.summarize(ScanMetrics.Operation.CONTAINS, 0).count);
+        assertEquals(3, metrics.summarize(ScanMetrics.Operation.MATCH, 0).count);
+        assertEquals(3, metrics.summarize(ScanMetrics.Operation.REPLACE, 0).count);
+    }
+
+    @Test
+    public void testReadersDuringConcurrentUpdates() throws Exception {
+        AhoCorasickAutomaton automaton = new AhoCorasickAutomaton();
+        automaton.addSensitiveWord("基础词");
+
+        int readerCount = 4;
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(readerCount);
+        for (int t = 0; t < readerCount; t++) {
+            new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        // 任何时刻发布的快照都必须包含基础词
+                        if (!automaton.containsSensitiveWords("包含基础词的文本")) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        for (int i = 0; i < 200; i++) {
+            automaton.addSensitiveWord("动态词" + i);
+        }
+        running.set(false);
+        done.await();
+        automaton.shutdown();
+
+        assertEquals(0, failures.get());
+        assertTrue(automaton.containsSensitiveWords("动态词199"));
+        assertEquals(201, automaton.getSnapshot().size());
+    }
+
+    @Test
+    public void testCollectMatchesWithOffsets() {
+        AutomatonSnapshot snapshot = AutomatonSnapshot.builder()
+                .addWords(Arrays.asList("敏感词", "感词", "测试"))
+                .build();
+        MatchCollector collector = new MatchCollector(1);
+        String text = "测试一个敏感词，再测试";
+        assertEquals(4, snapshot.collectMatches(text, collector));
+        assertEquals(4, collector.size());
+        int[][] expected = {{0, 2, 2}, {4, 7, 0}, {5, 7, 1}, {9, 11, 2}};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i][0], collector.start(i));
+            assertEquals(expected[i][1], collector.end(i));
+            assertEquals(expected[i][2], collector.wordId(i));
+            assertEquals(snapshot.getWord(collector.wordId(i)), text.substring(collector.start(i), collector.end(i)));
+        }
+
+        // 复用时先清空
+        assertEquals(3, snapshot.collectMatches(text, MatchKind.LEFTMOST_LONGEST, WordCategory.ALL, collector));
+        assertEquals(4, collector.start(1));
+        assertEquals(7, collector.end(1));
+        assertEquals(0, snapshot.collectMatches("", collector));
+        assertEquals(0, collector.size());
+
+        MatchCollector counter = MatchCollector.countOnly();
+        assertEquals(4, snapshot.collectMatches(text, counter));
+        assertEquals(0, counter.size());
+        assertEquals(3, snapshot.collectMatches(text, MatchKind.LEFTMOST_FIRST, counter));
+        assertEquals(3, counter.count());
+        assertEquals(0, counter.size());
+
+        // 增量层的命中同样按结束位置排列，wordId可直接取词
+        AutomatonSnapshot edited = snapshot.withWord("一个", WordCategory.GENERAL.mask()).withoutWord("感词");
+        assertEquals(4, edited.collectMatches(text, collector));
+        assertEquals("一个", edited.getWord(collector.wordId(1)));
+        assertEquals(2, collector.start(1));
+        assertEquals(7, collector.end(2));
+
+        // 排序、筛选在备用数组上进行，复用的collector容量不会缩小
+        String many = "测试敏感词".repeat(40);
+        edited.collectMatches(many, collector);
+        int capacity = collector.buffer.capacity();
+        assertTrue(capacity >= 80);
+        for (MatchKind kind : MatchKind.values()) {
+            edited.collectMatches(many, kind, collector);
+            assertEquals(capacity, collector.buffer.capacity(), kind.name());
+            assertEquals(80, collector.count(), kind.name());
+            assertEquals(0, collector.start(0));
+            assertEquals("敏感词", edited.getWord(collector.wordId(1)));
+            assertEquals(5, collector.end(1));
+        }
+
+        // 其他引擎通过接口的默认实现收集
+        OptimizedDoubleArrayAhoCorasick engine = new OptimizedDoubleArrayAhoCorasick(Arrays.asList("敏感词", "测试"));
+        assertEquals(3, engine.collectMatches(text, collector));
+        assertEquals("敏感词", engine.getWord(collector.wordId(1)));
+    }
+}
@@ -0,0 +1,43 @@
+package com.sensitivewords.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchExecutorTest {
+
+    @Test
+    public void testResultsKeepInputOrder() {
+        try (BatchExecutor executor = new BatchExecutor(3, "test-batch")) {
+            List<Integer> items = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                items.add(i);
+            }
+            List<String> threadNames = executor.map(items, i -> Thread.currentThread().getName());
+            List<Integer> squares = executor.map(items, i -> i * i);
+
+            for (int i = 0; i < items.size(); i++) {
+                assertEquals(i * i, squares.get(i));
+                assertTrue(threadNames.get(i).startsWith("test-batch-"), threadNames.get(i));
+            }
+            BatchExecutor.BatchStats stats = executor.getBatchStats();
+            assertEquals(2, stats.batchCount);
+            assertEquals(20_000, stats.itemCount);
+            assertTrue(stats.maxTimeNs >= stats.lastTimeNs);
+        }
+    }
+
+    @Test
+    public void testBatchReplaceMatchesSingleReplace() {
+        OptimizedDoubleArrayAhoCorasick automaton = new OptimizedDoubleArrayAhoCorasick(Arrays.asList("敏感词", "测试"));
+        List<String> texts = Arrays.asList("这是敏感词", "正常文本", "测试一下敏感词", "");
+        try (BatchExecutor executor = new BatchExecutor(2)) {
+            List<String> replaced = automaton.batchReplace(texts, '*', executor);
+            assertEquals(Arrays.asList("这是***", "正常文本", "**一下***", ""), replaced);
+        }
+    }
+}
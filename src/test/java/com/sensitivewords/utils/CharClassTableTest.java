@@ -0,0 +1,40 @@
+package com.sensitivewords.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CharClassTableTest {
+
+    @Test
+    public void testLookupMatchesFlatArray() {
+        Random random = new Random(7);
+        int[] classes = new int[Character.MAX_VALUE + 1];
+        for (int i = 0; i < 3000; i++) {
+            classes[0x4E00 + random.nextInt(0x5000)] = 1 + random.nextInt(3000);
+        }
+        CharClassTable table = CharClassTable.of(classes);
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            assertEquals(classes[c], table.classOf((char) c));
+        }
+        // 绝大多数页是共享的全零页
+        assertTrue(table.distinctPages() < 100, "独立页数: " + table.distinctPages());
+    }
+
+    @Test
+    public void testIdenticalPagesAreSharedAcrossInstances() {
+        int[] classes = new int[Character.MAX_VALUE + 1];
+        classes['a'] = 2;
+        classes['中'] = 3;
+        CharClassTable first = CharClassTable.of(classes);
+        int pooled = CharClassTable.pooledPages();
+        CharClassTable second = CharClassTable.of(classes.clone());
+
+        // 第二个实例没有产生新页
+        assertEquals(pooled, CharClassTable.pooledPages());
+        assertEquals(3, first.distinctPages());
+        assertEquals(first.classOf('中'), second.classOf('中'));
+    }
+}
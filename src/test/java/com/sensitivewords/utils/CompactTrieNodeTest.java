@@ -0,0 +1,65 @@
+package com.sensitivewords.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactTrieNodeTest {
+
+    @Test
+    public void testNodeKindsFollowChildCount() {
+        CompactTrieNode node = new CompactTrieNode();
+        assertEquals(0, node.kind());
+        node.addChild('敏', new CompactTrieNode());
+        assertEquals(1, node.kind());
+        node.addChild('感', new CompactTrieNode());
+        assertEquals(2, node.kind());
+
+        // 字符集中的宽节点改为稠密数组，之后加入相距很远的字符退回排序数组
+        for (char c = 'a'; c < 'a' + CompactTrieNode.DENSE_MIN_CHILDREN; c++) {
+            node.addChild(c, new CompactTrieNode());
+        }
+        assertEquals(2, node.kind());
+        CompactTrieNode wide = new CompactTrieNode();
+        for (char c = 0x4E00; c < 0x4E00 + 40; c++) {
+            wide.addChild(c, new CompactTrieNode());
+        }
+        assertEquals(3, wide.kind());
+        wide.addChild('＀', new CompactTrieNode());
+        assertEquals(2, wide.kind());
+        assertNotNull(wide.getChild('丁'));
+        assertNotNull(wide.getChild('＀'));
+        assertNull(wide.getChild((char) (0x4E00 + 40)));
+    }
+
+    @Test
+    public void testMatchesMapUnderRandomInserts() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            CompactTrieNode node = new CompactTrieNode();
+            Map<Character, CompactTrieNode> expected = new HashMap<>();
+            int count = random.nextInt(300);
+            int range = 1 + random.nextInt(2000);
+            for (int i = 0; i < count; i++) {
+                char c = (char) (0x4E00 + random.nextInt(range));
+                CompactTrieNode child = new CompactTrieNode();
+                node.addChild(c, child);
+                expected.put(c, child);
+            }
+            assertEquals(expected.size(), node.getChildCount());
+            char previous = 0;
+            for (int i = 0; i < node.getChildCount(); i++) {
+                char c = node.getChildChar(i);
+                assertTrue(i == 0 || c > previous);
+                assertSame(expected.get(c), node.getChildAt(i));
+                assertSame(expected.get(c), node.getChild(c));
+                previous = c;
+            }
+            assertNull(node.getChild('a'));
+        }
+    }
+}
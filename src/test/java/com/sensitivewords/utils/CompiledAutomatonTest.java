@@ -0,0 +1,159 @@
+package com.sensitivewords.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledAutomatonTest {
+
+    private static CompactTrieNode buildTrie(List<String> words) {
+        CompactTrieNode root = new CompactTrieNode();
+        for (int wordId = 0; wordId < words.size(); wordId++) {
+            CompactTrieNode current = root;
+            for (char c : words.get(wordId).toCharArray()) {
+                if (current.getChild(c) == null) {
+                    current.addChild(c, new CompactTrieNode());
+                }
+                current = current.getChild(c);
+            }
+            current.setEndOfWord(true);
+            current.setWordId(wordId);
+        }
+        return root;
+    }
+
+    @Test
+    public void testSuffixOutputIsTerminal() {
+        List<String> words = Arrays.asList("abcd", "bc", "敏感词");
+        CompiledAutomaton automaton = CompiledAutomaton.compile(buildTrie(words));
+
+        int state = CompiledAutomaton.ROOT;
+        boolean hit = false;
+        for (char c : "xabce".toCharArray()) {
+            state = automaton.next(state, c);
+            hit |= automaton.isTerminal(state);
+        }
+        assertTrue(hit, "bc 是 abc 的后缀，应当命中");
+    }
+
+    @Test
+    public void testSkipToCandidate() {
+        CompiledAutomaton automaton = CompiledAutomaton.compile(buildTrie(Arrays.asList("bc", "敏感词")));
+
+        // 只有各词的首字符是候选，c和感虽然出现在词中，但不会从根节点开始
+        assertEquals(3, automaton.skipToCandidate("xcyb", 0, 4));
+        assertEquals(2, automaton.skipToCandidate("感c敏", 0, 3));
+        // 区间内没有候选时返回to
+        assertEquals(4, automaton.skipToCandidate("bxcy", 1, 4));
+        assertEquals(1, automaton.skipToCandidate("xbc".getBytes(StandardCharsets.US_ASCII), 0, 3));
+    }
+
+    @Test
+    public void testWordAtATimeSkipMatchesScalarScan() {
+        // 没有ASCII候选、少量ASCII候选（按字比较）、大量ASCII候选（逐字符）三种情况
+        List<List<String>> dictionaries = Arrays.asList(
+                Arrays.asList("敏感词", "é站"),
+                Arrays.asList("敏感词", "bc", "x"),
+                Arrays.asList("敏感词", "a1", "b2", "c3", "d4", "e5", "f6"));
+        char[] alphabet = "abcdefxyz 012345.,\u00e9\u00ff敏感词测试".toCharArray();
+        Random random = new Random(7);
+        for (List<String> words : dictionaries) {
+            CompiledAutomaton automaton = CompiledAutomaton.compile(buildTrie(words));
+            StringBuilder firsts = new StringBuilder();
+            words.forEach(w -> firsts.append(w.charAt(0)));
+            for (int round = 0; round < 200; round++) {
+                StringBuilder sb = new StringBuilder();
+                int length = random.nextInt(40);
+                for (int i = 0; i < length; i++) {
+                    // 大部分是非候选字符，才会出现整组跳过
+                    sb.append(random.nextInt(4) == 0 ? alphabet[random.nextInt(alphabet.length)] : 'y');
+                }
+                String text = sb.toString();
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                for (int from = 0; from <= text.length(); from++) {
+                    int expected = from;
+                    while (expected < text.length() && firsts.indexOf(String.valueOf(text.charAt(expected))) < 0) {
+                        expected++;
+                    }
+                    assertEquals(expected, automaton.skipToCandidate(text, from, text.length()), text + " @" + from);
+                }
+                for (int from = 0; from <= bytes.length; from++) {
+                    int expected = from;
+                    while (expected < bytes.length && bytes[expected] >= 0
+                            && firsts.indexOf(String.valueOf((char) bytes[expected])) < 0) {
+                        expected++;
+                    }
+                    assertEquals(expected, automaton.skipToCandidate(bytes, from, bytes.length), text + " @" + from);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSparseRowsMatchFullDfa() {
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            StringBuilder sb = new StringBuilder();
+            int len = 1 + random.nextInt(6);
+            for (int j = 0; j < len; j++) {
+                sb.append((char) ('a' + random.nextInt(8)));
+            }
+            words.add(sb.toString());
+        }
+
+        CompiledAutomaton dense = CompiledAutomaton.compile(buildTrie(words), Integer.MAX_VALUE);
+        // 只给根节点分配稠密行，其余状态全部走稀疏行 + 失败指针
+        CompiledAutomaton sparse = CompiledAutomaton.compile(buildTrie(words), 1);
+        assertEquals(dense.getStateCount(), dense.getDenseStates());
+        assertEquals(1, sparse.getDenseStates());
+
+        int denseState = CompiledAutomaton.ROOT;
+        int sparseState = CompiledAutomaton.ROOT;
+        for (int i = 0; i < 100_000; i++) {
+            char c = (char) ('a' + random.nextInt(10));
+            denseState = dense.next(denseState, c);
+            sparseState = sparse.next(sparseState, c);
+            assertEquals(denseState, sparseState);
+            assertEquals(dense.isTerminal(denseState), sparse.isTerminal(sparseState));
+            assertEquals(dense.wordIdAt(denseState), sparse.wordIdAt(sparseState));
+        }
+    }
+
+    // 小Trie只为出现的字符及其等价写法建立字符类，结果须与遍历全部字符的完整编译相同
+    @Test
+    public void testSmallTrieCompileMatchesFullCompile() {
+        CharNormalizer normalizer = CharNormalizer.standard();
+        List<String> words = new ArrayList<>();
+        for (String word : Arrays.asList("敏感词", "感词", "Free Money", "www.bad.com", "赌博", "a")) {
+            words.add(normalizer.normalize(word));
+        }
+        CompactTrieNode root = buildTrie(words);
+        CompiledAutomaton small = CompiledAutomaton.compile(root, normalizer, CompiledAutomaton.DEFAULT_DENSE_BUDGET,
+                CompiledAutomaton.SMALL_TRIE_STATES);
+        CompiledAutomaton full = CompiledAutomaton.compile(root, normalizer, CompiledAutomaton.DEFAULT_DENSE_BUDGET, 0);
+        assertEquals(full.getStateCount(), small.getStateCount());
+        assertEquals(full.getClassCount(), small.getClassCount());
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            assertEquals(full.classOf((char) c), small.classOf((char) c), "字符 " + c);
+        }
+        String text = "這是敏感詞，ＦＲＥＥ　money，訪問WWW.BAD.COM，赌 博 A";
+        for (int i = 0; i <= text.length(); i++) {
+            assertEquals(full.skipToCandidate(text, i, text.length()), small.skipToCandidate(text, i, text.length()));
+        }
+        int a = CompiledAutomaton.ROOT;
+        int b = CompiledAutomaton.ROOT;
+        for (char c : text.toCharArray()) {
+            a = full.next(a, c);
+            b = small.next(b, c);
+            assertEquals(a, b);
+            assertEquals(full.isTerminal(a), small.isTerminal(b));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.sensitivewords.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsAreContiguous() {
+        // 相邻桶首尾相接，桶宽不超过下界的1/16
+        long expectedLower = 0;
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(expectedLower));
+            assertEquals(bucket, LatencyHistogram.bucketOf(upper));
+            assertTrue(upper - expectedLower <= Math.max(0, expectedLower / 16), "bucket " + bucket);
+            expectedLower = upper + 1;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+        LatencyHistogram.Summary summary = histogram.summarize();
+        assertEquals(100_000, summary.count);
+        assertEquals(50_000.5, summary.meanNs, 0.001);
+        assertEquals(100_000, summary.maxNs);
+        assertWithin(50_000, summary.p50Ns);
+        assertWithin(99_000, summary.p99Ns);
+        assertWithin(99_900, summary.p999Ns);
+
+        // 分条在记录时才分配，单线程只用到一条
+        assertEquals(1, histogram.allocatedStripes());
+
+        LatencyHistogram empty = new LatencyHistogram();
+        assertEquals(0, empty.summarize().count);
+        assertEquals(0, empty.summarize().p99Ns);
+        assertEquals(0, empty.allocatedStripes());
+    }
+
+    @Test
+    public void testConcurrentRecordsAreNotLost() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        histogram.record(i % 1000);
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        LatencyHistogram.Summary summary = histogram.summarize();
+        assertEquals(80_000, summary.count);
+        assertEquals(999, summary.maxNs);
+        assertEquals(499.5, summary.meanNs, 0.001);
+    }
+
+    @Test
+    public void testScanMetricsByOperationAndLength() {
+        ScanMetrics metrics = new ScanMetrics();
+        long startTime = System.nanoTime();
+        metrics.record(ScanMetrics.Operation.CONTAINS, 10, startTime);
+        metrics.record(ScanMetrics.Operation.CONTAINS, 64, startTime);
+        metrics.record(ScanMetrics.Operation.CONTAINS, 65, startTime);
+        metrics.record(ScanMetrics.Operation.REPLACE, 100_000, startTime);
+
+        assertEquals(2, metrics.summarize(ScanMetrics.Operation.CONTAINS, 0).count);
+        assertEquals(1, metrics.summarize(ScanMetrics.Operation.CONTAINS, 1).count);
+        assertEquals(4, ScanMetrics.lengthBucketOf(100_000));
+        Map<String, Map<String, LatencyHistogram.Summary>> summary = metrics.summarize();
+        assertEquals(2, summary.get("contains").size());
+        assertTrue(summary.get("match").isEmpty());
+        assertEquals(1, summary.get("replace").get("32769+").count);
+    }
+
+    // 分位数按桶上界报告，不小于真实值，且误差不超过1/16
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 16, expected + " -> " + actual);
+    }
+}
@@ -0,0 +1,72 @@
+package com.sensitivewords.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LexiconLoaderTest {
+
+    private static List<String> read(byte[] bytes) throws Exception {
+        return LexiconLoader.read(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void testDetectsLexiconEncodings() throws Exception {
+        List<String> expected = List.of("出售雷管", "炸药", "QQ");
+        String content = "出售雷管\r\n炸药,\r\n\r\n QQ \r\n";
+
+        assertEquals(expected, read(content.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(expected, read(content.getBytes(Charset.forName("GBK"))));
+        // 带BOM的UTF-16LE
+        byte[] utf16 = content.getBytes(StandardCharsets.UTF_16LE);
+        byte[] withBom = new byte[utf16.length + 2];
+        withBom[0] = (byte) 0xFF;
+        withBom[1] = (byte) 0xFE;
+        System.arraycopy(utf16, 0, withBom, 2, utf16.length);
+        assertEquals(expected, read(withBom));
+    }
+
+    // 默认只加载综合词库；网址等分类通过 sensitive.categories 开启后，字符串和UTF-8字节扫描都能命中
+    @Test
+    public void testExtraCategoriesAreOptIn() {
+        String text = "访问 000.2011WYT.COM 订票";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        AhoCorasickAutomaton automaton = new AhoCorasickAutomaton();
+        try {
+            automaton.init();
+            assertEquals(Set.of(WordCategory.GENERAL), WordCategory.setOf(automaton.hitCategories(text, WordCategory.ALL)));
+            assertFalse(automaton.containsSensitiveWords(text, WordCategory.URL.mask()));
+
+            ReflectionTestUtils.setField(automaton, "lexiconCategories", "GENERAL, 网址");
+            automaton.init();
+            assertTrue(automaton.containsSensitiveWords(text, WordCategory.URL.mask()));
+            assertEquals(List.of("000.2011wyt.com"), automaton.matchByCategory(text, WordCategory.URL.mask())
+                    .get(WordCategory.URL));
+            assertTrue(automaton.containsSensitiveWords(bytes, 0, bytes.length));
+            List<String> matched = new ArrayList<>();
+            automaton.forEachMatch(ByteBuffer.wrap(bytes), (start, end, wordId) ->
+                    matched.add(new String(bytes, start, end - start, StandardCharsets.UTF_8)));
+            assertTrue(matched.contains("000.2011WYT.COM"), matched.toString());
+        } finally {
+            automaton.shutdown();
+        }
+    }
+
+    @Test
+    public void testParseCategories() {
+        assertEquals(EnumSet.of(WordCategory.GENERAL, WordCategory.URL),
+                AhoCorasickAutomaton.parseCategories("general,网址"));
+        assertThrows(IllegalArgumentException.class, () -> AhoCorasickAutomaton.parseCategories("GENERAL,未知"));
+        assertThrows(IllegalArgumentException.class, () -> AhoCorasickAutomaton.parseCategories(" "));
+    }
+}
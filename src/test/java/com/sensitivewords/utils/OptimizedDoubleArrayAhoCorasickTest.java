@@ -11,6 +11,7 @@ import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
@@ -22,6 +23,13 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.Executors;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class OptimizedDoubleArrayAhoCorasickTest {
     private static final Logger logger = LoggerFactory.getLogger(OptimizedDoubleArrayAhoCorasickTest.class);
     private static OptimizedDoubleArrayAhoCorasick ac;
@@ -153,6 +161,81 @@ public class OptimizedDoubleArrayAhoCorasickTest {
         return sb.toString();
     }
 
+    @Test
+    public void testEveryWordIsReachable() {
+        List<String> sensitiveWords = readCsvToList("tencentData.csv");
+        OptimizedDoubleArrayAhoCorasick.BuildStats stats = ac.getBuildStats();
+        logger.info("构建耗时: {}ms, 状态数: {}, 数组大小: {}, 填充率: {}", stats.buildTimeMs, stats.stateCount,
+                stats.arraySize, String.format("%.2f%%", stats.fillRatio * 100));
+
+        for (String word : sensitiveWords) {
+            if (word.isEmpty()) continue;
+            String masked = ac.replace(word, '*');
+            assertEquals("*".repeat(word.length()), masked, "敏感词未被完整替换: " + word);
+        }
+        assertTrue(stats.fillRatio > 0.5, "双数组填充率过低");
+    }
+
+    @Test
+    public void testNullTextIsNotSensitive() {
+        OptimizedDoubleArrayAhoCorasick small = new OptimizedDoubleArrayAhoCorasick(Arrays.asList("测试"));
+        assertFalse(small.containsSensitiveWords(null));
+        assertTrue(small.matchAllSensitiveWords(null).isEmpty());
+        assertNull(small.replace(null, '*'));
+        // 与AhoCorasickAutomaton一致，null按长度0计入统计
+        assertEquals(1, small.getMetrics().summarize(ScanMetrics.Operation.CONTAINS, 0).count);
+        assertEquals(1, small.getMetrics().summarize(ScanMetrics.Operation.MATCH, 0).count);
+    }
+
+    @Test
+    public void testLargeDictionaryBuildStaysLinear() {
+        // 20万个随机词：不跳过反复失败的空闲槽位时，每个状态平均要尝试数百个槽位
+        Random seeded = new Random(1);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 2 + seeded.nextInt(5);
+            for (int j = 0; j < length; j++) {
+                sb.append((char) (0x4e00 + seeded.nextInt(3000)));
+            }
+            words.add(sb.toString());
+        }
+        OptimizedDoubleArrayAhoCorasick large = new OptimizedDoubleArrayAhoCorasick(words);
+        OptimizedDoubleArrayAhoCorasick.BuildStats stats = large.getBuildStats();
+        logger.info("构建耗时: {}ms, 状态数: {}, 尝试槽位: {}", stats.buildTimeMs, stats.stateCount, stats.baseProbes);
+        assertTrue(stats.baseProbes < 64L * stats.stateCount, "查找base尝试的槽位过多: " + stats.baseProbes);
+        assertTrue(stats.fillRatio > 0.5, "双数组填充率过低");
+        for (int i = 0; i < words.size(); i += 997) {
+            assertTrue(large.containsSensitiveWords("前" + words.get(i) + "后"), words.get(i));
+        }
+    }
+
+    @Test
+    public void testOverlappingSuffixMatches() {
+        OptimizedDoubleArrayAhoCorasick small = new OptimizedDoubleArrayAhoCorasick(
+                Arrays.asList("中华人民", "人民", "民", "华人"));
+        List<String> matched = new ArrayList<>();
+        List<int[]> ranges = new ArrayList<>();
+        small.forEachMatch("中华人民共和国", (start, end, wordId) -> {
+            matched.add(small.getWord(wordId));
+            ranges.add(new int[]{start, end});
+        });
+
+        assertEquals(Arrays.asList("华人", "中华人民", "人民", "民"), matched);
+        assertArrayEquals(new int[]{0, 4}, ranges.get(1));
+        assertArrayEquals(new int[]{3, 4}, ranges.get(3));
+        assertEquals("****共和国", small.replace("中华人民共和国", '*'));
+        assertTrue(small.containsSensitiveWords("中华人民共和国"));
+        assertFalse(small.containsSensitiveWords("共和国"));
+        String clean = "共和国";
+        assertSame(clean, small.replace(clean, '*'));
+
+        char[] out = new char[7];
+        MaskRanges maskRanges = new MaskRanges();
+        assertEquals(1, small.replaceInto("中华人民共和国", '*', MatchKind.STANDARD, out, 0, maskRanges));
+        assertEquals("****共和国", new String(out));
+    }
+
     @ParameterizedTest
     @ValueSource(ints = {1, 4, 8, 16, 32})
     public void testThroughputWithDifferentThreads(int threadCount) throws Exception {
@@ -0,0 +1,101 @@
+package com.sensitivewords.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanResultCacheTest {
+
+    @Test
+    public void testRepeatedTextHitsCache() {
+        AutomatonSnapshot snapshot = AutomatonSnapshot.builder().addWords(Arrays.asList("敏感词", "测试")).build();
+        ScanResultCache cache = ScanResultCache.create(100, 64);
+
+        assertTrue(cache.containsSensitiveWords(snapshot, "这是敏感词"));
+        assertTrue(cache.containsSensitiveWords(snapshot, "这是敏感词"));
+        assertFalse(cache.containsSensitiveWords(snapshot, "这是正常文本"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        // 不同操作、不同匹配语义、不同掩码字符分别缓存
+        assertEquals("这是***", cache.mask(snapshot, "这是敏感词", '*', MatchKind.STANDARD));
+        assertEquals("这是###", cache.mask(snapshot, "这是敏感词", '#', MatchKind.STANDARD));
+        assertEquals("这是###", cache.mask(snapshot, "这是敏感词", '#', MatchKind.STANDARD));
+        List<String> matches = cache.matchAllSensitiveWords(snapshot, "测试敏感词", MatchKind.STANDARD);
+        assertEquals(Arrays.asList("测试", "敏感词"), matches);
+        assertSame(matches, cache.matchAllSensitiveWords(snapshot, "测试敏感词", MatchKind.STANDARD));
+        assertThrows(UnsupportedOperationException.class, () -> matches.add("共享结果不可修改"));
+        assertEquals(3, cache.getHitCount());
+
+        // 超长文本和空文本不缓存
+        String longText = "敏感词".repeat(30);
+        assertTrue(cache.containsSensitiveWords(snapshot, longText));
+        assertTrue(cache.containsSensitiveWords(snapshot, longText));
+        assertFalse(cache.containsSensitiveWords(snapshot, ""));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(5, cache.getMissCount());
+    }
+
+    @Test
+    public void testNewDictionaryVersionMissesOldResults() {
+        AutomatonSnapshot snapshot = AutomatonSnapshot.builder().addWord("敏感词").build();
+        ScanResultCache cache = ScanResultCache.create(100, 64);
+        assertFalse(cache.containsSensitiveWords(snapshot, "一段新词文本"));
+
+        // 旧结果仍在缓存中，但键里的词表版本不同
+        AutomatonSnapshot next = snapshot.withWord("新词", WordCategory.GENERAL.mask());
+        assertTrue(cache.containsSensitiveWords(next, "一段新词文本"));
+        assertFalse(cache.containsSensitiveWords(snapshot, "一段新词文本"));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testAutomatonInvalidatesOnEdit() {
+        AhoCorasickAutomaton automaton = new AhoCorasickAutomaton();
+        try {
+            automaton.enableResultCache(100, 64);
+            automaton.addSensitiveWords(Arrays.asList("敏感词", "测试"));
+            assertEquals("正常文本", automaton.mask("正常文本", '*'));
+            assertEquals("正常文本", automaton.mask("正常文本", '*'));
+            assertEquals(1, automaton.getResultCache().getHitCount());
+            assertEquals(1, automaton.getResultCache().size());
+
+            automaton.addSensitiveWord("正常");
+            assertEquals(0, automaton.getResultCache().size());
+            assertEquals("**文本", automaton.mask("正常文本", '*'));
+            automaton.removeSensitiveWord("正常");
+            assertEquals("正常文本", automaton.mask("正常文本", '*'));
+
+            // 对外返回的列表仍可修改
+            List<String> matches = automaton.matchAllSensitiveWords("测试");
+            matches.add("调用方自己的列表");
+            assertEquals(List.of("测试"), automaton.matchAllSensitiveWords("测试"));
+        } finally {
+            automaton.shutdown();
+        }
+    }
+
+    @Test
+    public void testSeededHash() {
+        ScanResultCache cache = ScanResultCache.create(1, 64);
+        assertEquals(cache.hash("重复的刷屏消息"), cache.hash(new String("重复的刷屏消息")));
+        assertNotEquals(cache.hash("ab"), cache.hash("ba"));
+        assertNotEquals(cache.hash("abcd"), cache.hash("abcd\0"));
+        // 不同实例的种子不同
+        assertNotEquals(cache.hash("重复的刷屏消息"), ScanResultCache.create(1, 64).hash("重复的刷屏消息"));
+    }
+
+    // 哈希相同而原文不同的键互不相等，碰撞的文本各自缓存，不会被记作命中
+    @Test
+    public void testKeysWithCollidingHashCompareText() {
+        ScanResultCache.Key key = new ScanResultCache.Key(42, "文本一", 0, 1);
+        assertEquals(key, new ScanResultCache.Key(42, new String("文本一"), 0, 1));
+        assertEquals(key.hashCode(), new ScanResultCache.Key(42, "文本二", 0, 1).hashCode());
+        assertNotEquals(key, new ScanResultCache.Key(42, "文本二", 0, 1));
+        assertNotEquals(key, new ScanResultCache.Key(42, "文本一", 1, 1));
+        assertNotEquals(key, new ScanResultCache.Key(42, "文本一", 0, 2));
+    }
+}
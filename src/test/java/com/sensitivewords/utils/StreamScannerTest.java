@@ -0,0 +1,79 @@
+package com.sensitivewords.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamScannerTest {
+    private static final AutomatonSnapshot snapshot = AutomatonSnapshot.builder()
+            .addWords(Arrays.asList("敏感词", "感词", "abc"))
+            .build();
+
+    private static final String TEXT = "前缀敏感词中间abc结尾敏感词";
+
+    private static List<String> expected() {
+        // 形如 起点-终点:词
+        return Arrays.asList("2-5:敏感词", "3-5:感词", "7-10:abc", "12-15:敏感词", "13-15:感词");
+    }
+
+    private static StreamMatchHandler collect(List<String> out) {
+        return (start, end, wordId) -> out.add(start + "-" + end + ":" + snapshot.getSensitiveWord(wordId));
+    }
+
+    @Test
+    public void testReaderAcrossChunkBoundaries() throws Exception {
+        for (int bufferSize = 1; bufferSize <= 8; bufferSize++) {
+            List<String> matches = new ArrayList<>();
+            StreamScanner scanner = new StreamScanner(snapshot.getAutomaton(), collect(matches), bufferSize);
+            long scanned = scanner.scan(new StringReader(TEXT));
+
+            assertEquals(TEXT.length(), scanned);
+            assertEquals(expected(), matches, "缓冲区大小: " + bufferSize);
+        }
+    }
+
+    @Test
+    public void testUtf8BytesSplitInsideCharacters() throws Exception {
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        for (int bufferSize = 4; bufferSize <= 9; bufferSize++) {
+            List<String> matches = new ArrayList<>();
+            StreamScanner scanner = new StreamScanner(snapshot.getAutomaton(), collect(matches), bufferSize);
+            scanner.scan(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8);
+
+            assertEquals(expected(), matches, "缓冲区大小: " + bufferSize);
+            assertEquals(TEXT.length(), scanner.getPosition());
+        }
+    }
+
+    @Test
+    public void testIgnorableCharsInsideMatchAcrossChunks() throws Exception {
+        String text = "前缀敏，感 词結尾ＡＢＣ";
+        for (int bufferSize = 1; bufferSize <= 4; bufferSize++) {
+            List<String> matches = new ArrayList<>();
+            StreamScanner scanner = new StreamScanner(snapshot.getAutomaton(), collect(matches), bufferSize);
+            scanner.scan(new StringReader(text));
+
+            // 偏移对应原文，起点落在第一个非忽略字符上
+            assertEquals(Arrays.asList("2-7:敏感词", "4-7:感词", "9-12:abc"), matches, "缓冲区大小: " + bufferSize);
+        }
+    }
+
+    @Test
+    public void testManualFeedKeepsState() {
+        List<String> matches = new ArrayList<>();
+        StreamScanner scanner = snapshot.newStreamScanner(collect(matches));
+        scanner.feed("前缀敏".toCharArray(), 0, 3);
+        scanner.feed("xx感词".toCharArray(), 2, 2);
+
+        assertEquals(Arrays.asList("2-5:敏感词", "3-5:感词"), matches);
+        scanner.reset();
+        assertEquals(0, scanner.getPosition());
+    }
+}
@@ -0,0 +1,123 @@
+package com.sensitivewords.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Utf8AutomatonTest {
+    private static final List<String> WORDS = Arrays.asList("敏感词", "感词", "abc", "混合mix词", "😀表情");
+
+    @Test
+    public void testMatchesUseByteOffsets() {
+        Utf8Automaton automaton = Utf8Automaton.build(WORDS);
+        byte[] bytes = "x敏感词 abc".getBytes(StandardCharsets.UTF_8);
+
+        List<String> matches = new ArrayList<>();
+        automaton.forEachMatch(bytes, 0, bytes.length,
+                (start, end, wordId) -> matches.add(start + "-" + end + ":" + WORDS.get(wordId)));
+
+        assertEquals(Arrays.asList("1-10:敏感词", "4-10:感词", "11-14:abc"), matches);
+    }
+
+    @Test
+    public void testHeapAndDirectBuffersAgreeWithStringScan() {
+        AutomatonSnapshot snapshot = AutomatonSnapshot.builder().addWords(WORDS).build();
+        Utf8Automaton automaton = snapshot.getUtf8Automaton();
+        String[] texts = {"正常文本", "包含敏感词的文本", "混合mix词", "带😀表情", "a b c", "ab", "感", ""};
+
+        for (String text : texts) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+            direct.put((byte) 'x').put(bytes).flip();
+            direct.position(1);
+
+            boolean expected = snapshot.containsSensitiveWords(text);
+            assertEquals(expected, automaton.containsSensitiveWords(bytes, 0, bytes.length), text);
+            assertEquals(expected, automaton.containsSensitiveWords(ByteBuffer.wrap(bytes)), text);
+            assertEquals(expected, automaton.containsSensitiveWords(direct), text);
+            assertEquals(1, direct.position());
+        }
+    }
+
+    // 字节扫描与字符串扫描的结果一致：含标点、空格的词，大小写、全角、繁体写法，夹杂可忽略字符和非法字节
+    @Test
+    public void testByteAndStringScansAgree() {
+        AutomatonSnapshot snapshot = AutomatonSnapshot.builder()
+                .addWords(Arrays.asList("www.bad.com", "Free Money", "敏感词", "a-b", "😀表情"))
+                .build();
+        String[] texts = {"visit www.bad.com", "visit WWW．BAD．ＣＯＭ now", "get free money", "FREE,MONEY!",
+                "ｆｒｅｅ　ｍｏｎｅｙ", "这是敏感詞", "敏，感\u200B词", "a b", "ab", "a-b", "带😀，表情", "正常文本", ""};
+        for (String text : texts) {
+            assertAgree(snapshot, text);
+        }
+
+        // 非法UTF-8字节与解码后的U+FFFD一样打断匹配，不影响其余命中的偏移
+        byte[] bytes = "敏感词\u0000敏感".getBytes(StandardCharsets.UTF_8);
+        bytes[bytes.length - 1] = (byte) 0xFF;
+        byte[] withWord = Arrays.copyOf(bytes, bytes.length + 3);
+        System.arraycopy("词".getBytes(StandardCharsets.UTF_8), 0, withWord, bytes.length, 3);
+        assertAgree(snapshot, withWord);
+        assertAgree(snapshot, new byte[]{(byte) 0xE6, (byte) 0x95, 'a', '-', 'b', (byte) 0xC0, (byte) 0xAF});
+    }
+
+    // 删除与文本无关的词不改变字节扫描的结果；删除的词的各种写法都不再命中
+    @Test
+    public void testRemovedWordsAreConsistentAcrossByteAndStringScans() {
+        AutomatonSnapshot snapshot = AutomatonSnapshot.builder()
+                .addWords(Arrays.asList("www.bad.com", "ab", "Free Money", "zz"))
+                .build();
+        AutomatonSnapshot removed = snapshot.withoutWord("zz");
+        for (String text : new String[]{"a b", "visit www.bad.com", "FREE MONEY", "正常文本"}) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            assertEquals(snapshot.containsSensitiveWords(bytes, 0, bytes.length),
+                    removed.containsSensitiveWords(bytes, 0, bytes.length), text);
+            assertAgree(removed, text);
+        }
+
+        AutomatonSnapshot withoutMoney = snapshot.withoutWord("free money");
+        for (String text : new String[]{"free money", "FREE MONEY", "ｆｒｅｅ　ｍｏｎｅｙ"}) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            assertTrue(snapshot.containsSensitiveWords(bytes, 0, bytes.length), text);
+            assertFalse(withoutMoney.containsSensitiveWords(bytes, 0, bytes.length), text);
+            assertFalse(withoutMoney.containsSensitiveWords(ByteBuffer.wrap(bytes)), text);
+            assertAgree(withoutMoney, text);
+        }
+
+        // 增量层新增的词同样经过归一化
+        AutomatonSnapshot added = withoutMoney.withWord("Bad Word", WordCategory.GENERAL.mask());
+        assertAgree(added, "a BAD-WORD and www.bad.com");
+    }
+
+    private static void assertAgree(AutomatonSnapshot snapshot, String text) {
+        assertAgree(snapshot, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 按字节扫描的命中换算成字符偏移后，与把字节解码成String再扫描的结果相同
+    private static void assertAgree(AutomatonSnapshot snapshot, byte[] bytes) {
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        List<String> expected = new ArrayList<>();
+        snapshot.forEachMatch(text, (start, end, wordId) -> expected.add(start + "-" + end + ":" + wordId));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(bytes), direct}) {
+            List<String> actual = new ArrayList<>();
+            snapshot.forEachMatch(buffer, (start, end, wordId) -> actual.add(
+                    charOffset(bytes, start) + "-" + charOffset(bytes, end) + ":" + wordId));
+            assertEquals(expected, actual, text);
+            assertEquals(!expected.isEmpty(), snapshot.containsSensitiveWords(buffer), text);
+        }
+        assertEquals(!expected.isEmpty(), snapshot.containsSensitiveWords(bytes, 0, bytes.length), text);
+        assertEquals(snapshot.containsSensitiveWords(text), snapshot.containsSensitiveWords(bytes, 0, bytes.length), text);
+    }
+
+    private static int charOffset(byte[] bytes, int byteOffset) {
+        return new String(bytes, 0, byteOffset, StandardCharsets.UTF_8).length();
+    }
+}
@@ -0,0 +1,65 @@
+package com.sensitivewords.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WuManberMatcherTest {
+
+    // 随机词表中有重复词，两个引擎分配的wordId不同，按词本身比较
+    private static Set<String> collect(SensitiveWordMatcher matcher, String text) {
+        Set<String> matches = new TreeSet<>();
+        matcher.forEachMatch(text, (start, end, wordId) -> matches.add(start + ":" + end + ":" + matcher.getWord(wordId)));
+        return matches;
+    }
+
+    @Test
+    public void testMatchesSameAsAutomaton() {
+        Random random = new Random(7);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            StringBuilder sb = new StringBuilder();
+            int len = 3 + random.nextInt(6);
+            for (int j = 0; j < len; j++) {
+                sb.append((char) ('a' + random.nextInt(5)));
+            }
+            words.add(sb.toString());
+        }
+        WuManberMatcher matcher = WuManberMatcher.build(words);
+        OptimizedDoubleArrayAhoCorasick automaton = new OptimizedDoubleArrayAhoCorasick(words);
+        assertEquals(3, matcher.getMinWordLength());
+
+        for (int round = 0; round < 200; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 100; i++) {
+                sb.append((char) ('a' + random.nextInt(7)));
+            }
+            String text = sb.toString();
+            assertEquals(collect(automaton, text), collect(matcher, text), text);
+            assertEquals(automaton.containsSensitiveWords(text), matcher.containsSensitiveWords(text), text);
+        }
+    }
+
+    @Test
+    public void testLongWordsAndMask() {
+        WuManberMatcher matcher = WuManberMatcher.build(Arrays.asList("example.com", "ample.co", "广告推广联系"));
+
+        assertEquals(Arrays.asList("example.com", "ample.co"), matcher.matchAllSensitiveWords("访问example.com了解"));
+        assertEquals("访问***********了解", matcher.mask("访问example.com了解", '*'));
+        assertEquals("**", matcher.mask("**", '*'));
+        assertTrue(matcher.containsSensitiveWords("末尾广告推广联系"));
+        assertFalse(matcher.containsSensitiveWords("广告推广"));
+
+        String clean = "没有命中的文本";
+        assertSame(clean, matcher.mask(clean, '*'));
+        assertFalse(WuManberMatcher.build(Collections.emptyList()).containsSensitiveWords("任意文本"));
+    }
+}